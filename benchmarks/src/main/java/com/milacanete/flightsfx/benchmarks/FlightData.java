@@ -0,0 +1,62 @@
+package com.milacanete.flightsfx.benchmarks;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FlightParser;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera datos de vuelos reproducibles para los benchmarks.
+ */
+public class FlightData {
+
+    /**
+     * Destinos de ejemplo, se repiten como en los datos reales.
+     */
+    static final String[] DESTINATIONS = {
+            "Madrid", "Oviedo", "Edinburgh", "Paris", "London", "Roma", "Berlin", "Lisboa",
+            "Amsterdam", "Dublin", "Praga", "Viena", "Atenas", "Oslo", "Málaga", "Valencia"
+    };
+
+    /**
+     * Genera una lista de vuelos aleatorios con semilla fija.
+     * @param rows número de vuelos.
+     * @return la lista de vuelos.
+     */
+    public static List<Flight> generate(int rows) {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Flight> flights = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String number = (char) ('A' + random.nextInt(26)) + "" + (char) ('A' + random.nextInt(26)) + random.nextInt(10_000);
+            flights.add(new Flight(number,
+                    DESTINATIONS[random.nextInt(DESTINATIONS.length)],
+                    base.plusMinutes(random.nextInt(3 * 365 * 24 * 60)),
+                    LocalTime.of(random.nextInt(14), random.nextInt(60))));
+        }
+        return flights;
+    }
+
+    /**
+     * Escribe los vuelos en un archivo de texto con el formato de flights.txt.
+     * @param path ruta del archivo.
+     * @param flights vuelos a escribir.
+     * @throws IOException si ocurre un error al escribir.
+     */
+    public static void writeText(Path path, List<Flight> flights) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (Flight flight : flights) {
+                writer.write(FlightParser.format(flight));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.milacanete.flightsfx.benchmarks;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FileUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide la carga y el guardado de flights.txt con {@link FileUtils}, tal como los usa la aplicación.
+ * <ul>
+ *     <li>{@code load}: {@link FileUtils#getFlights()}, lectura y análisis completo del archivo.</li>
+ *     <li>{@code save}: {@link FileUtils#saveFlightsToFile(List)}, escritura en un archivo temporal y reemplazo atómico.</li>
+ * </ul>
+ * <p> El archivo se crea en un directorio temporal, que se usa como directorio de trabajo ({@code user.dir})
+ * durante el benchmark. Con {@code -prof gc} se obtiene además la memoria asignada por operación:
+ * {@code java -jar target/benchmarks.jar FlightFileBenchmark -prof gc}. </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class FlightFileBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Path directory;
+    private String userDir;
+    private List<Flight> flights;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("flights-bench");
+        userDir = System.getProperty("user.dir");
+        System.setProperty("user.dir", directory.toString());
+        flights = FlightData.generate(rows);
+        FlightData.writeText(directory.resolve("flights.txt"), flights);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setProperty("user.dir", userDir);
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public List<Flight> load() {
+        return FileUtils.getFlights();
+    }
+
+    @Benchmark
+    public void save() {
+        FileUtils.saveFlightsToFile(flights);
+    }
+}
@@ -0,0 +1,62 @@
+package com.milacanete.flightsfx.benchmarks;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.ColumnarFlightStore;
+import com.milacanete.flightsfx.persistence.FlightParser;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Compara la memoria del heap que ocupan los mismos vuelos como {@code List<Flight>}, tal como los carga
+ * la aplicación desde flights.txt, y como {@link ColumnarFlightStore}.
+ * <p> No es un benchmark JMH: mide el heap retenido después de forzar la recolección de basura,
+ * por lo que conviene ejecutarlo con un heap fijo, por ejemplo: </p>
+ * <pre>
+ * java -Xms4g -Xmx4g -cp target/benchmarks.jar com.milacanete.flightsfx.benchmarks.FlightMemoryBenchmark 2000000
+ * </pre>
+ */
+public class FlightMemoryBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path textFile = Files.createTempFile("flights-memory", ".txt");
+        try {
+            FlightData.writeText(textFile, FlightData.generate(rows));
+
+            long base = usedHeap();
+            List<Flight> flights;
+            try (FileChannel channel = FileChannel.open(textFile, StandardOpenOption.READ)) {
+                flights = FlightParser.parseAll(channel);
+            }
+            long listBytes = usedHeap() - base;
+
+            ColumnarFlightStore store = ColumnarFlightStore.of(flights);
+            long storeBytes = usedHeap() - base - listBytes;
+
+            System.out.printf("Vuelos: %,d%n", flights.size());
+            System.out.printf("List<Flight>:        %,d bytes (%.1f bytes por vuelo)%n", listBytes, (double) listBytes / flights.size());
+            System.out.printf("ColumnarFlightStore: %,d bytes (%.1f bytes por vuelo)%n", storeBytes, (double) storeBytes / store.size());
+            Reference.reachabilityFence(flights);
+            Reference.reachabilityFence(store);
+        } finally {
+            Files.deleteIfExists(textFile);
+        }
+    }
+
+    /**
+     * Obtiene el heap ocupado después de forzar varias veces la recolección de basura.
+     */
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,195 @@
+package com.milacanete.flightsfx.benchmarks;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.query.FlightFilter;
+import com.milacanete.flightsfx.repository.FlightRepository;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mide las consultas de la vista principal y del gráfico sobre el {@link FlightRepository}.
+ * Cada consulta se compara con el recorrido completo de la lista, que es como se resolvía antes de los índices.
+ * <ul>
+ *     <li>{@code equalsSame} y {@code equalsDifferent}: {@link Flight#equals(Object)} entre vuelos iguales y distintos.</li>
+ *     <li>{@code duplicateCheck}: comprobación de vuelo repetido al agregar (validación de vuelo existente).</li>
+ *     <li>{@code searchByFlightNumber}, {@code searchByDestination} y {@code searchByDeparture}:
+ *     los tres modos de búsqueda de la vista principal.</li>
+ *     <li>{@code departureRange} y {@code durationRange}: vuelos que salen en las 3 horas siguientes a un vuelo
+ *     y vuelos de entre 2 y 4 horas, combinados con el destino de ese vuelo.</li>
+ *     <li>{@code searchAsYouTypeFlightNumber} y {@code searchAsYouTypeDestination}: búsqueda mientras se escribe
+ *     de los tres primeros caracteres de un número de vuelo y de un destino, limitada como en la vista principal.</li>
+ *     <li>{@code nextDepartures}: los próximos 5 vuelos.</li>
+ *     <li>{@code destinationCounts}: número de vuelos por destino, como lo agrupa el gráfico.</li>
+ * </ul>
+ * <p> Con {@code -prof gc} se obtiene además la memoria asignada por operación:
+ * {@code java -jar target/benchmarks.jar FlightQueryBenchmark -prof gc}. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class FlightQueryBenchmark {
+
+    private static final int NEXT_FLIGHTS = 5;
+    private static final int SEARCH_LIMIT = 1_000;
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private FlightRepository repository;
+    private List<Flight> flights;
+    private Flight existing;
+    private Flight existingCopy;
+    private Flight missing;
+    private LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = new FlightRepository();
+        repository.getFlights().setAll(FlightData.generate(rows));
+        flights = repository.getFlights();
+        existing = flights.get(flights.size() / 2);
+        existingCopy = new Flight(existing.getFlightNumber(), existing.getDestination().toUpperCase(),
+                existing.getDepartureTime(), existing.getDuration());
+        missing = new Flight("ZZ0000", existing.getDestination(), existing.getDepartureTime(), existing.getDuration());
+        now = existing.getDepartureTime();
+    }
+
+    @Benchmark
+    public boolean equalsSame() {
+        return existing.equals(existingCopy);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return existing.equals(missing);
+    }
+
+    @Benchmark
+    public boolean duplicateCheck() {
+        return repository.contains(missing);
+    }
+
+    @Benchmark
+    public boolean duplicateCheckScan() {
+        return flights.contains(missing);
+    }
+
+    @Benchmark
+    public int searchByFlightNumber() {
+        return repository.filter(FlightFilter.flightNumber(existing.getFlightNumber())).size();
+    }
+
+    @Benchmark
+    public int searchByFlightNumberScan() {
+        return scan(FlightFilter.flightNumber(existing.getFlightNumber())).size();
+    }
+
+    @Benchmark
+    public int searchByDestination() {
+        return repository.filter(FlightFilter.destination(existing.getDestination())).size();
+    }
+
+    @Benchmark
+    public int searchByDestinationScan() {
+        return scan(FlightFilter.destination(existing.getDestination())).size();
+    }
+
+    @Benchmark
+    public int searchByDeparture() {
+        return repository.filter(FlightFilter.departureAt(existing.getDepartureTime())).size();
+    }
+
+    @Benchmark
+    public int searchByDepartureScan() {
+        return scan(FlightFilter.departureAt(existing.getDepartureTime())).size();
+    }
+
+    @Benchmark
+    public int departureRange() {
+        return repository.filter(departureRangeFilter()).size();
+    }
+
+    @Benchmark
+    public int departureRangeScan() {
+        return scan(departureRangeFilter()).size();
+    }
+
+    @Benchmark
+    public int durationRange() {
+        return repository.filter(durationRangeFilter()).size();
+    }
+
+    @Benchmark
+    public int durationRangeScan() {
+        return scan(durationRangeFilter()).size();
+    }
+
+    @Benchmark
+    public int searchAsYouTypeFlightNumber() {
+        return repository.filter(FlightFilter.flightNumberPrefix(existing.getFlightNumber().substring(0, 3), SEARCH_LIMIT)).size();
+    }
+
+    @Benchmark
+    public int searchAsYouTypeFlightNumberScan() {
+        return scanLimited(FlightFilter.flightNumberPrefix(existing.getFlightNumber().substring(0, 3), SEARCH_LIMIT)).size();
+    }
+
+    @Benchmark
+    public int searchAsYouTypeDestination() {
+        return repository.filter(FlightFilter.destinationMatching(existing.getDestination().substring(0, 3), SEARCH_LIMIT)).size();
+    }
+
+    @Benchmark
+    public int searchAsYouTypeDestinationScan() {
+        return scanLimited(FlightFilter.destinationMatching(existing.getDestination().substring(0, 3), SEARCH_LIMIT)).size();
+    }
+
+    @Benchmark
+    public List<Flight> nextDepartures() {
+        return repository.findNextDepartures(now, NEXT_FLIGHTS);
+    }
+
+    @Benchmark
+    public List<Flight> nextDeparturesScan() {
+        return flights.stream()
+                .filter(flight -> flight.getDepartureTime().isAfter(now))
+                .sorted(Comparator.comparing(Flight::getDepartureTime))
+                .limit(NEXT_FLIGHTS)
+                .toList();
+    }
+
+    @Benchmark
+    public Map<String, Long> destinationCounts() {
+        return repository.getStatistics().getDestinationCounts();
+    }
+
+    @Benchmark
+    public Map<String, Long> destinationCountsScan() {
+        return flights.stream().collect(Collectors.groupingBy(Flight::getDestination, Collectors.counting()));
+    }
+
+    private FlightFilter departureRangeFilter() {
+        return FlightFilter.departureBetween(now, now.plusHours(3)).and(FlightFilter.destination(existing.getDestination()));
+    }
+
+    private FlightFilter durationRangeFilter() {
+        return FlightFilter.durationBetween(LocalTime.of(2, 0), LocalTime.of(4, 0)).and(FlightFilter.destination(existing.getDestination()));
+    }
+
+    private List<Flight> scan(FlightFilter filter) {
+        return flights.stream().filter(filter).toList();
+    }
+
+    private List<Flight> scanLimited(FlightFilter filter) {
+        return flights.stream().filter(filter).limit(SEARCH_LIMIT).toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.milacanete.flightsfx.benchmarks;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.BinaryFlightStore;
+import com.milacanete.flightsfx.persistence.FlightParser;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compara el tiempo de arranque con el archivo de texto flights.txt y con el almacén binario flights.bin.
+ * <ul>
+ *     <li>{@code textLoad}: análisis completo del archivo de texto.</li>
+ *     <li>{@code binaryOpen}: apertura del almacén binario, sin decodificar los registros.</li>
+ *     <li>{@code binaryLoad}: apertura del almacén binario y decodificación de todos los vuelos.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreStartupBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private Path directory;
+    private Path textFile;
+    private Path binaryFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("flights-bench");
+        textFile = directory.resolve("flights.txt");
+        binaryFile = directory.resolve("flights.bin");
+        List<Flight> flights = FlightData.generate(rows);
+        FlightData.writeText(textFile, flights);
+        BinaryFlightStore.write(binaryFile, flights);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(textFile);
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<Flight> textLoad() throws IOException {
+        try (FileChannel channel = FileChannel.open(textFile, StandardOpenOption.READ)) {
+            return FlightParser.parseAll(channel);
+        }
+    }
+
+    @Benchmark
+    public int binaryOpen() throws IOException {
+        return BinaryFlightStore.open(binaryFile).size();
+    }
+
+    @Benchmark
+    public List<Flight> binaryLoad() throws IOException {
+        BinaryFlightStore store = BinaryFlightStore.open(binaryFile);
+        List<Flight> flights = new ArrayList<>(store.size());
+        for (int i = 0; i < store.size(); i++) {
+            flights.add(store.get(i));
+        }
+        return flights;
+    }
+}
@@ -0,0 +1,227 @@
+package com.milacanete.flightsfx;
+
+import com.milacanete.flightsfx.analytics.DurationHistogram;
+import com.milacanete.flightsfx.analytics.FlightAnalytics;
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FlightStore;
+import com.milacanete.flightsfx.utils.MessageUtils;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.concurrent.Task;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controlador para la vista de análisis de las duraciones de los vuelos.
+ * Muestra la duración media y los percentiles p50, p90 y p99, el histograma de duraciones por horas
+ * y el desglose por destino y por mes, calculados con {@link FlightAnalytics}.
+ * <p> El análisis se calcula en segundo plano sobre una copia de la lista del repositorio de la aplicación
+ * cada vez que se muestra la vista, o al pulsar el botón "Refresh". </p>
+ */
+public class FXMLAnalyticsViewController {
+
+    /**
+     * Raíz de la vista.
+     */
+    @FXML
+    private SplitPane rootSplitPane;
+
+    /**
+     * Etiqueta con el resumen de las duraciones.
+     */
+    @FXML
+    private Label idSummaryLabel;
+
+    /**
+     * Gráfico de barras con el número de vuelos por horas de duración.
+     */
+    @FXML
+    private BarChart<String, Number> idDurationBarChart;
+
+    /**
+     * Tabla con las duraciones por destino.
+     */
+    @FXML
+    private TableView<Breakdown> idDestinationTableView;
+
+    /**
+     * Tabla con las duraciones por mes de salida.
+     */
+    @FXML
+    private TableView<Breakdown> idMonthTableView;
+
+    /**
+     * Botón que vuelve a calcular el análisis.
+     */
+    @FXML
+    private Button idRefreshButton;
+
+    /**
+     * Botón que permite regresar a la vista principal.
+     */
+    @FXML
+    private Button idGoToBackButton;
+
+    /**
+     * Gestor de las vistas de la ventana.
+     */
+    private final ViewManager views;
+
+    //Logger para registrar información y errores
+    private static final Logger logger = Logger.getLogger(FXMLAnalyticsViewController.class.getName());
+
+    /**
+     * Fila de las tablas de desglose.
+     * @param name destino o mes.
+     * @param histogram histograma de las duraciones de los vuelos del destino o del mes.
+     */
+    private record Breakdown(String name, DurationHistogram histogram) {}
+
+    /**
+     * Crea el controlador de la vista de análisis, lo llama {@link ViewManager} al cargar la vista.
+     * @param views gestor de las vistas, que proporciona el repositorio de vuelos de la aplicación.
+     */
+    public FXMLAnalyticsViewController(ViewManager views) {
+        this.views = views;
+    }
+
+    /**
+     * Inicializa las tablas y programa el análisis cada vez que la vista se muestra en la ventana.
+     */
+    @FXML
+    public void initialize() {
+        configureTable(idDestinationTableView, "Destination");
+        configureTable(idMonthTableView, "Month");
+
+        //la escena se reutiliza, al volver a mostrarla se asigna de nuevo a la ventana
+        rootSplitPane.sceneProperty().addListener((_, _, scene) -> {
+            if (scene != null) {
+                scene.windowProperty().addListener((_, _, window) -> {
+                    if (window != null) refresh();
+                });
+            }
+        });
+    }
+
+    /**
+     * Crea las columnas de una tabla de desglose: nombre, número de vuelos, media y percentiles.
+     * @param table tabla a configurar.
+     * @param nameTitle título de la columna del nombre.
+     */
+    private void configureTable(TableView<Breakdown> table, String nameTitle) {
+        TableColumn<Breakdown, String> nameColumn = new TableColumn<>(nameTitle);
+        nameColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().name()));
+        TableColumn<Breakdown, Long> countColumn = new TableColumn<>("Flights");
+        countColumn.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().histogram().getCount()));
+        table.getColumns().add(nameColumn);
+        table.getColumns().add(countColumn);
+        table.getColumns().add(durationColumn("Mean", histogram -> (int) Math.round(histogram.getMean())));
+        table.getColumns().add(durationColumn("p50", histogram -> histogram.getPercentile(50)));
+        table.getColumns().add(durationColumn("p90", histogram -> histogram.getPercentile(90)));
+        table.getColumns().add(durationColumn("p99", histogram -> histogram.getPercentile(99)));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+    }
+
+    /**
+     * Crea una columna con una duración calculada a partir del histograma de la fila.
+     */
+    private static TableColumn<Breakdown, String> durationColumn(String title, ToIntFunction<DurationHistogram> minutes) {
+        TableColumn<Breakdown, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData ->
+                new SimpleStringProperty(formatMinutes(minutes.applyAsInt(cellData.getValue().histogram()))));
+        return column;
+    }
+
+    /**
+     * Asociado a la acción de clic en el botón "Refresh".
+     * Calcula el análisis en un hilo en segundo plano sobre una copia de la lista de vuelos y muestra el resultado.
+     * En la vista paginada la lista está vacía, y se analiza directamente el almacén de vuelos.
+     */
+    @FXML
+    public void refresh() {
+        FlightStore store = views.getRepository().getPagedStore();
+        List<Flight> flights = store != null ? List.of() : new ArrayList<>(views.getRepository().getFlights());
+        idRefreshButton.setDisable(true);
+        idSummaryLabel.setText("Calculando...");
+
+        Task<FlightAnalytics.Report> task = new Task<>() {
+            @Override
+            protected FlightAnalytics.Report call() {
+                return store != null ? FlightAnalytics.analyze(store) : FlightAnalytics.analyze(flights);
+            }
+        };
+        task.setOnSucceeded(_ -> {
+            showReport(task.getValue());
+            idRefreshButton.setDisable(false);
+        });
+        task.setOnFailed(_ -> {
+            logger.log(Level.SEVERE, "Error al analizar los vuelos", task.getException());
+            MessageUtils.showError("Error al analizar los vuelos");
+            idRefreshButton.setDisable(false);
+        });
+
+        Thread thread = new Thread(task, "flights-analytics");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Muestra el resultado del análisis en el resumen, el gráfico y las tablas.
+     * @param report resultado del análisis.
+     */
+    private void showReport(FlightAnalytics.Report report) {
+        DurationHistogram overall = report.overall();
+        idSummaryLabel.setText(String.format("Vuelos: %d   Media: %s   p50: %s   p90: %s   p99: %s",
+                overall.getCount(),
+                formatMinutes((int) Math.round(overall.getMean())),
+                formatMinutes(overall.getPercentile(50)),
+                formatMinutes(overall.getPercentile(90)),
+                formatMinutes(overall.getPercentile(99))));
+
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        long[] hours = overall.getHourCounts();
+        for (int hour = 0; hour < hours.length; hour++) {
+            series.getData().add(new XYChart.Data<>(hour + "h", hours[hour]));
+        }
+        idDurationBarChart.getData().setAll(List.of(series));
+
+        idDestinationTableView.getItems().setAll(toBreakdown(report.byDestination()));
+        idMonthTableView.getItems().setAll(toBreakdown(report.byMonth()));
+    }
+
+    private static List<Breakdown> toBreakdown(Map<?, DurationHistogram> histograms) {
+        List<Breakdown> rows = new ArrayList<>(histograms.size());
+        histograms.forEach((key, histogram) -> rows.add(new Breakdown(key.toString(), histogram)));
+        return rows;
+    }
+
+    /**
+     * Formatea una duración en minutos como horas y minutos (H:mm).
+     */
+    private static String formatMinutes(int minutes) {
+        return String.format("%d:%02d", minutes / 60, minutes % 60);
+    }
+
+    /**
+     * Maneja el evento de clic en el botón "Back to Main" y permite regresar a la vista principal.
+     * @param event el evento que desencadena la acción, asociado al botón.
+     * @throws Exception Esta excepción se devuelve si ocurre un error al cargar la vista principal.
+     */
+    @FXML
+    public void goToBack(ActionEvent event) throws Exception {
+        views.show(ViewManager.MAIN_VIEW);
+    }
+}
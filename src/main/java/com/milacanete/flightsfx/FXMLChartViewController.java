@@ -1,31 +1,29 @@
 package com.milacanete.flightsfx;
 
+import com.milacanete.flightsfx.diagnostics.Metrics;
+import com.milacanete.flightsfx.model.DestinationDictionary;
 import com.milacanete.flightsfx.model.Flight;
-import com.milacanete.flightsfx.utils.FileUtils;
+import com.milacanete.flightsfx.query.FlightStatistics;
+import com.milacanete.flightsfx.repository.FlightRepository;
+import javafx.collections.ListChangeListener;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.chart.PieChart;
 import javafx.scene.control.Button;
-import javafx.stage.Stage;
-import java.util.List;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 
 /**
  * Controlador para la vista de gráficos en el módulo de vuelos.
  * Gestiona la visualización de un gráfico circular basado en los destinos de vuelo.
- * La lista de vuelos se obtiene desde el controlador principal {@link FXMLMainViewController},
- * que a su vez carga la lista desde el archivo correspondiente mediante la clase {@link FileUtils}.
- * Este controlador permite la navegación de regreso a la vista principal y agrupa los vuelos
- * por destino para mostrar las estadísticas en un gráfico de pastel.
+ * La lista de vuelos y sus estadísticas se obtienen del {@link FlightRepository} de la aplicación,
+ * que proporciona {@link ViewManager} y que también usa el controlador principal {@link FXMLMainViewController}.
+ * Este controlador permite la navegación de regreso a la vista principal y muestra en un gráfico de pastel
+ * el número de vuelos por destino. El gráfico se actualiza con cada cambio de la lista,
+ * modificando solo las porciones de los destinos afectados. Los destinos se agrupan por su identificador
+ * de {@link DestinationDictionary}, sin distinguir mayúsculas de minúsculas.
  */
 public class FXMLChartViewController {
 
@@ -41,51 +39,86 @@ public class FXMLChartViewController {
     @FXML
     public Button idGoToBackButton;
 
+    /**
+     * Gestor de las vistas de la ventana.
+     */
+    private final ViewManager views;
+
+    /**
+     * Porciones del gráfico por identificador de destino.
+     */
+    private final Map<Integer, PieChart.Data> slices = new HashMap<>();
+
+    /**
+     * Crea el controlador de la vista del gráfico, lo llama {@link ViewManager} al cargar la vista.
+     * @param views gestor de las vistas, que proporciona el repositorio de vuelos de la aplicación.
+     */
+    public FXMLChartViewController(ViewManager views) {
+        this.views = views;
+    }
+
     /**
      * Inicializa el controlador y configura el gráfico circular con los datos de vuelos agrupados por destino.
      * Este método se ejecuta automáticamente al cargar el archivo FXML correspondiente.
      */
     @FXML
     public void initialize() {
+        FlightRepository repository = views.getRepository();
+        FlightStatistics statistics = repository.getStatistics();
 
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/milacanete/flightsfx/FXMLMainView.fxml"));
-            loader.load();
-            // Obtiene el controlador principal y la lista de vuelos
-            FXMLMainViewController controller = loader.getController();
-            List<Flight> flights = controller.getFlightsObsList();
+        idFlightsPieChart.setTitle("Destinos");
+        long start = System.nanoTime();
+        for (int id = 0; id < DestinationDictionary.size(); id++) {
+            updateSlice(id, statistics.getDestinationCount(id));
+        }
+        Metrics.timer("chart.aggregation").stop(start);
+        // Los vuelos se cargan en segundo plano, el gráfico se actualiza a medida que cambia la lista
+        repository.getFlights().addListener((ListChangeListener<Flight>) change -> updateDestinations(change, statistics));
+    }
 
-            idFlightsPieChart.setTitle("Destinos");
-            idFlightsPieChart.getData().clear();
+    /**
+     * Actualiza las porciones de los destinos de los vuelos agregados y eliminados de la lista.
+     * El repositorio actualiza sus estadísticas antes que este listener, ya que registró el suyo primero.
+     * @param change cambio producido en la lista.
+     * @param statistics estadísticas de la lista de vuelos.
+     */
+    private void updateDestinations(ListChangeListener.Change<? extends Flight> change, FlightStatistics statistics) {
+        long start = System.nanoTime();
+        BitSet destinations = new BitSet();
+        while (change.next()) {
+            if (change.wasPermutated()) continue; //el orden no afecta al gráfico
+            change.getRemoved().forEach(flight -> destinations.set(flight.getDestinationId()));
+            change.getAddedSubList().forEach(flight -> destinations.set(flight.getDestinationId()));
+        }
+        destinations.stream().forEach(id -> updateSlice(id, statistics.getDestinationCount(id)));
+        Metrics.timer("chart.aggregation").stop(start);
+    }
 
-            // Agrupa los vuelos por destino y cuenta la cantidad de vuelos para cada destino
-            Map<String, Long> result = flights.stream()
-                    .collect(Collectors.groupingBy(
-                            Flight::getDestination,
-                            Collectors.counting()
-                    ));
-            // Agrega los datos procesados al gráfico circular
-            result.forEach((destination, count) ->
-                    idFlightsPieChart.getData().add(new PieChart.Data(destination, count)));
-        } catch (Exception e) {
-            Logger.getLogger(FXMLChartViewController.class.getName()).log(Level.SEVERE, null, e);
+    /**
+     * Actualiza la porción de un destino, la crea si no existe o la elimina si ya no quedan vuelos.
+     * @param destinationId identificador del destino.
+     * @param count número de vuelos al destino, 0 si no queda ninguno.
+     */
+    private void updateSlice(int destinationId, long count) {
+        PieChart.Data slice = slices.get(destinationId);
+        if (count == 0) {
+            if (slice != null) idFlightsPieChart.getData().remove(slices.remove(destinationId));
+        } else if (slice == null) {
+            slice = new PieChart.Data(DestinationDictionary.getName(destinationId), count);
+            slices.put(destinationId, slice);
+            idFlightsPieChart.getData().add(slice);
+        } else {
+            slice.setPieValue(count);
         }
     }
 
     /**
      * Maneja el evento de clic en el botón "Volver" y permite regresar a la vista principal.
-     * Cambia la escena actual de la ventana a la definida en el archivo FXML de la vista principal.
+     * Cambia la escena actual de la ventana a la de la vista principal, que ya está cargada.
      * @param event el evento que desencadena la acción, asociado al botón.
      * @throws Exception Esta excepción se devuelve si ocurre un error al cargar la vista principal.
      */
     public void goToBack(ActionEvent event) throws Exception {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/milacanete/flightsfx/FXMLMainView.fxml"));
-        Parent view1 = loader.load();
-        Scene view1Scene = new Scene(view1);
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow(); // Obtiene la ventana actual, Node apunta al nodo que dispara el evento
-        view1Scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/CSS/style.css")).toExternalForm()); // Establece la hoja de estilos para la nueva escena
-        stage.hide();
-        stage.setScene(view1Scene);
-        stage.show();
+        views.show(ViewManager.MAIN_VIEW);
     }
 }
@@ -0,0 +1,140 @@
+package com.milacanete.flightsfx;
+
+import com.milacanete.flightsfx.diagnostics.Metrics;
+import com.milacanete.flightsfx.utils.MessageUtils;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.util.Duration;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controlador para la vista de diagnóstico.
+ * Muestra las métricas de rendimiento registradas en {@link Metrics}: tiempos de carga, guardado, búsqueda,
+ * filtros y agregación del gráfico, número de vuelos y bytes leídos y escritos.
+ * <p> La tabla se actualiza cada segundo mientras la vista está en la ventana,
+ * y el botón "Export" escribe las métricas en el archivo de {@link Metrics#getSnapshotFile()}. </p>
+ */
+public class FXMLDiagnosticsViewController {
+
+    /**
+     * Raíz de la vista.
+     */
+    @FXML
+    private SplitPane rootSplitPane;
+
+    /**
+     * Tabla con el valor actual de cada métrica.
+     */
+    @FXML
+    private TableView<Metrics.Sample> idMetricsTableView;
+
+    /**
+     * Botón que exporta las métricas a un archivo.
+     */
+    @FXML
+    private Button idExportButton;
+
+    /**
+     * Botón que permite regresar a la vista principal.
+     */
+    @FXML
+    private Button idGoToBackButton;
+
+    /**
+     * Gestor de las vistas de la ventana.
+     */
+    private final ViewManager views;
+
+    /**
+     * Temporizador que actualiza la tabla cada segundo.
+     */
+    private final Timeline refreshTimeline = new Timeline(new KeyFrame(Duration.seconds(1), _ -> refresh()));
+
+    //Logger para registrar información y errores
+    private static final Logger logger = Logger.getLogger(FXMLDiagnosticsViewController.class.getName());
+
+    /**
+     * Crea el controlador de la vista de diagnóstico, lo llama {@link ViewManager} al cargar la vista.
+     * @param views gestor de las vistas.
+     */
+    public FXMLDiagnosticsViewController(ViewManager views) {
+        this.views = views;
+    }
+
+    /**
+     * Inicializa la tabla y actualiza las métricas solo mientras la vista se muestra en la ventana.
+     */
+    @FXML
+    public void initialize() {
+        idMetricsTableView.getColumns().add(column("Metric", Metrics.Sample::name));
+        idMetricsTableView.getColumns().add(column("Type", Metrics.Sample::type));
+        idMetricsTableView.getColumns().add(column("Value", Metrics.Sample::value));
+        idMetricsTableView.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+        //la escena se reutiliza, al cambiar de vista deja de estar asignada a la ventana
+        rootSplitPane.sceneProperty().addListener((_, _, scene) -> {
+            if (scene != null) {
+                scene.windowProperty().addListener((_, _, window) -> {
+                    if (window != null) {
+                        refresh();
+                        refreshTimeline.play();
+                    } else {
+                        refreshTimeline.stop();
+                    }
+                });
+            }
+        });
+    }
+
+    private static TableColumn<Metrics.Sample, String> column(String title, Function<Metrics.Sample, String> value) {
+        TableColumn<Metrics.Sample, String> column = new TableColumn<>(title);
+        column.setCellValueFactory(cellData -> new SimpleStringProperty(value.apply(cellData.getValue())));
+        return column;
+    }
+
+    /**
+     * Muestra el valor actual de las métricas en la tabla.
+     */
+    private void refresh() {
+        idMetricsTableView.getItems().setAll(Metrics.snapshot());
+    }
+
+    /**
+     * Asociado a la acción de clic en el botón "Export".
+     * Escribe el valor actual de las métricas en el archivo de métricas.
+     */
+    @FXML
+    public void exportSnapshot() {
+        Path file = Metrics.getSnapshotFile();
+        try {
+            Metrics.writeSnapshot(file);
+            MessageUtils.showMessage("Métricas exportadas a " + file);
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Error al exportar las métricas", ex);
+            MessageUtils.showError("Error al exportar las métricas");
+        }
+    }
+
+    /**
+     * Maneja el evento de clic en el botón "Back to Main" y permite regresar a la vista principal.
+     * @param event el evento que desencadena la acción, asociado al botón.
+     * @throws Exception Esta excepción se devuelve si ocurre un error al cargar la vista principal.
+     */
+    @FXML
+    public void goToBack(ActionEvent event) throws Exception {
+        views.show(ViewManager.MAIN_VIEW);
+    }
+}
@@ -1,35 +1,56 @@
 package com.milacanete.flightsfx;
 
+import com.milacanete.flightsfx.diagnostics.FlightEvents;
+import com.milacanete.flightsfx.diagnostics.Metrics;
 import com.milacanete.flightsfx.model.Flight;
-import com.milacanete.flightsfx.utils.FileUtils;
+import com.milacanete.flightsfx.persistence.FileUtils;
+import com.milacanete.flightsfx.persistence.FlightJournal;
+import com.milacanete.flightsfx.persistence.FlightParser;
+import com.milacanete.flightsfx.persistence.FlightStore;
+import com.milacanete.flightsfx.query.FlightFilter;
+import com.milacanete.flightsfx.query.ScheduleConflicts;
+import com.milacanete.flightsfx.repository.FlightRepository;
+import com.milacanete.flightsfx.repository.PagedFlightList;
+import com.milacanete.flightsfx.utils.FlightHistory;
+import com.milacanete.flightsfx.utils.FlightsFileWatcher;
+import com.milacanete.flightsfx.utils.FlightsLoadTask;
 import com.milacanete.flightsfx.utils.MessageUtils;
+import javafx.animation.PauseTransition;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.layout.HBox;
 import javafx.stage.WindowEvent;
+import javafx.util.Duration;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Locale;
 import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 
 /**
@@ -38,8 +59,8 @@ import java.util.stream.Collectors;
  * adición, eliminación y actualización de vuelos en la tabla.
  * Además, permite aplicar filtros, validar entradas y mostrar alertas de confirmación o errores.
  *
- * <p> La lista de vuelos se obtiene mediante la clase {@link FileUtils},
- * que carga los datos desde un archivo y los mantiene como una lista observable. </p>
+ * <p> La lista de vuelos pertenece al {@link FlightRepository} de la aplicación, que comparten todas las vistas
+ * a través de {@link ViewManager}, y se carga desde un archivo mediante la clase {@link FileUtils}. </p>
  * <p> La clase también utiliza {@link MessageUtils} para mostrar alertas de validación,
  * como la confirmación de acciones y la validación de caracteres prohibidos. </p>
  */
@@ -80,12 +101,30 @@ public class FXMLMainViewController {
     @FXML
     public TextField idSearchTextField;
 
+    /**
+     * Campo de texto con el final del rango en las búsquedas por rango de salida o de duración.
+     */
+    @FXML
+    private TextField idSearchToTextField;
+
     /**
      * Botón para actualizar información de un vuelo.
      */
     @FXML
     public Button idUpdateFlightButton;
 
+    /**
+     * Botón para deshacer el último cambio de la lista de vuelos.
+     */
+    @FXML
+    private Button idUndoButton;
+
+    /**
+     * Botón para rehacer el último cambio deshecho.
+     */
+    @FXML
+    private Button idRedoButton;
+
     /**
      * ChoiceBox para seleccionar el criterio de búsqueda.
      */
@@ -98,6 +137,18 @@ public class FXMLMainViewController {
     @FXML
     public Button idChartViewButton;
 
+    /**
+     * Botón para ir a la vista de análisis.
+     */
+    @FXML
+    public Button idAnalyticsViewButton;
+
+    /**
+     * Botón para ir a la vista de diagnóstico.
+     */
+    @FXML
+    public Button idDiagnosticsViewButton;
+
     /**
      * Botón para eliminar un vuelo.
      */
@@ -146,6 +197,12 @@ public class FXMLMainViewController {
     @FXML
     private ChoiceBox<String> idFiltersChoiceBox;
 
+    /**
+     * Spinner para seleccionar cuántos próximos vuelos se muestran con el filtro "Show next flights".
+     */
+    @FXML
+    private Spinner<Integer> idNextFlightsSpinner;
+
     /**
      * Columna para el número de vuelo.
      */
@@ -170,15 +227,194 @@ public class FXMLMainViewController {
     @FXML
     private SplitPane rootSplitPane;
 
+    /**
+     * Contenedor de la barra de progreso de la carga de vuelos.
+     */
+    @FXML
+    private HBox idLoadProgressHBox;
+
+    /**
+     * Barra de progreso de la carga de vuelos.
+     */
+    @FXML
+    private ProgressBar idLoadProgressBar;
+
+    /**
+     * Etiqueta con el estado de la carga de vuelos.
+     */
+    @FXML
+    private Label idLoadStatusLabel;
+
+    /**
+     * Botón para cancelar la carga de vuelos.
+     */
+    @FXML
+    private Button idCancelLoadButton;
+
     /**
      * Lista observable de vuelos.
      */
     @FXML
     private ObservableList<Flight> flightsObsList;
 
+    /**
+     * Gestor de las vistas de la ventana.
+     */
+    private final ViewManager views;
+
+    /**
+     * Repositorio de la aplicación que contiene la lista de vuelos y sus índices.
+     */
+    private final FlightRepository repository;
+
+    /**
+     * Tarea en segundo plano que carga los vuelos desde el archivo.
+     */
+    private FlightsLoadTask loadTask;
+
+    /**
+     * Indica si la tabla muestra la vista paginada de solo lectura, véase {@link FileUtils#isPagedView()}.
+     */
+    private final boolean pagedView = FileUtils.isPagedView();
+
+    /**
+     * Indica si la carga se canceló antes de leer el archivo completo.
+     * En ese caso la lista en memoria está incompleta y no se debe sobrescribir el archivo con ella.
+     */
+    private boolean partialLoad;
+
+    /**
+     * Vigilante de los cambios externos en flights.txt, {@code null} hasta que termina la carga.
+     */
+    private FlightsFileWatcher fileWatcher;
+
+    /**
+     * Diario donde se registra cada cambio de la lista de vuelos.
+     */
+    private final FlightJournal journal = new FlightJournal();
+
+    /**
+     * Historial de los cambios de la lista de vuelos, para deshacerlos y rehacerlos.
+     */
+    private final FlightHistory history = new FlightHistory(journal);
+
+    /**
+     * Lista que muestra el filtro "Show next flights", {@code null} si el filtro no se ha aplicado.
+     */
+    private ObservableList<Flight> nextFlights;
+
+    /**
+     * Lista que muestra el filtro "Show schedule conflicts", {@code null} si el filtro no se ha aplicado.
+     */
+    private ObservableList<Flight> conflictFlights;
+
+    /**
+     * Búsqueda de conflictos de horario en curso, {@code null} si no hay ninguna.
+     */
+    private Task<List<ScheduleConflicts.Conflict>> conflictsTask;
+
+    /**
+     * Último filtro por destino aplicado, con el filtro de ciudad o la búsqueda por destino, {@code null} si no hay.
+     * Mientras la tabla muestra su vista ({@link #destinationView}), las búsquedas por rango se combinan con él.
+     */
+    private FlightFilter destinationFilter;
+
+    /**
+     * Vista de la tabla con los vuelos del último filtro por destino.
+     */
+    private ObservableList<Flight> destinationView;
+
+    /**
+     * Temporizador que actualiza los próximos vuelos cuando sale el primero de ellos.
+     */
+    private final PauseTransition nextFlightsTimer = new PauseTransition();
+
+    /**
+     * Tiempo que se espera tras un cambio de la lista antes de recalcular las vistas que no se actualizan solas,
+     * en milisegundos, para recalcularlas una sola vez tras varios cambios seguidos.
+     */
+    private static final int REFRESH_DELAY_MILLIS = 100;
+
+    /**
+     * Temporizador que recalcula los próximos vuelos o los conflictos de horario cuando cambia la lista mientras se muestran.
+     */
+    private final PauseTransition refreshDelay = new PauseTransition(Duration.millis(REFRESH_DELAY_MILLIS));
+
+    /**
+     * Estados de la validación de los campos de entrada.
+     */
+    private enum ValidationState {
+        /** Los campos no tienen errores conocidos, se puede agregar el vuelo. */
+        VALID,
+        /** El número de vuelo contiene caracteres distintos de letras y números. */
+        PROHIBITED_CHARACTER,
+        /** Ya existe un vuelo con los datos de los campos. */
+        FLIGHT_EXISTS
+    }
+
+    /**
+     * Estado de la validación de los campos de entrada. Es lo único que determina la visibilidad de los mensajes
+     * de error y, junto con el modo de actualización, si el botón agregar está habilitado.
+     */
+    private final ObjectProperty<ValidationState> validationState = new SimpleObjectProperty<>(ValidationState.VALID);
+
+    /**
+     * Tiempo sin escribir tras el cual se comprueba si el vuelo existe, en milisegundos.
+     */
+    private static final int VALIDATION_DELAY_MILLIS = 250;
+
+    /**
+     * Temporizador que retrasa la comprobación de si el vuelo existe hasta que se deja de escribir.
+     */
+    private final PauseTransition validationDelay = new PauseTransition(Duration.millis(VALIDATION_DELAY_MILLIS));
+
+    /**
+     * Tiempo sin escribir en el campo de búsqueda tras el cual se buscan los vuelos, en milisegundos.
+     */
+    private static final int SEARCH_DELAY_MILLIS = 150;
+
+    /**
+     * Número máximo de vuelos que muestra la búsqueda mientras se escribe.
+     */
+    private static final int SEARCH_LIMIT = 1_000;
+
+    /**
+     * Temporizador que retrasa la búsqueda mientras se escribe hasta que se deja de escribir.
+     */
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MILLIS));
+
+    /**
+     * Lista que muestra la búsqueda mientras se escribe, {@code null} si no se ha buscado.
+     */
+    private ObservableList<Flight> searchResults;
+
+    /**
+     * Comprobación de si el vuelo existe en curso, {@code null} si no hay ninguna.
+     * Se cancela si los campos cambian antes de que termine.
+     */
+    private Task<Boolean> existsTask;
+
+    /**
+     * Hilo en segundo plano donde se comprueba si el vuelo existe.
+     */
+    private static final ExecutorService validationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flights-validator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     //Logger para registrar información y errores
     private static final Logger logger = Logger.getLogger(FXMLMainViewController.class.getName());
 
+    /**
+     * Crea el controlador de la vista principal, lo llama {@link ViewManager} al cargar la vista.
+     * @param views gestor de las vistas, que proporciona el repositorio de vuelos de la aplicación.
+     */
+    public FXMLMainViewController(ViewManager views) {
+        this.views = views;
+        this.repository = views.getRepository();
+    }
+
     /**
      * Método de inicialización que se ejecuta al cargar la vista.
      * Establece los valores predeterminados de los ChoiceBoxes,
@@ -186,23 +422,27 @@ public class FXMLMainViewController {
      */
     public void initialize() {
 
-        //listener para cerrar la ventana
-        if (rootSplitPane.getScene() != null) {
-            Stage stage = (Stage) rootSplitPane.getScene().getWindow();
-            stage.setOnCloseRequest(this::handleWindowClose);
-        }
+        //listener para cerrar la ventana, la escena y la ventana todavía no existen al inicializar el controlador
+        rootSplitPane.sceneProperty().addListener((_, _, scene) -> {
+            if (scene != null) {
+                scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), this::undo);
+                scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN), this::redo);
+                scene.windowProperty().addListener((_, _, window) -> {
+                    if (window != null) window.setOnCloseRequest(this::handleWindowClose);
+                });
+            }
+        });
 
-        //listener para desactivar botón agregar si el botón actualizar se activa, si hay un carácter prohibido o si el vuelo ya existe
-        ChangeListener<Boolean> listenerAddButton = (_, _, _) -> {
-            boolean isUpdating = !idUpdateFlightButton.isDisable();
-            boolean prohibitedCharacter = idProhibitedCharacter.isVisible();
-            boolean flightIsExists = idFlightIsExists.isVisible();
-            idAddButton.setDisable(isUpdating || prohibitedCharacter || flightIsExists);
-        };
+        //los mensajes de error dependen del estado de validación
+        idProhibitedCharacter.visibleProperty().bind(validationState.isEqualTo(ValidationState.PROHIBITED_CHARACTER));
+        idFlightIsExists.visibleProperty().bind(validationState.isEqualTo(ValidationState.FLIGHT_EXISTS));
+        //desactivar botón agregar si el botón actualizar se activa, si hay un carácter prohibido o si el vuelo ya existe
+        idAddButton.disableProperty().bind(idUpdateFlightButton.disableProperty().not()
+                .or(validationState.isNotEqualTo(ValidationState.VALID)));
 
-        idUpdateFlightButton.disableProperty().addListener(listenerAddButton); //si se activa el botón actualizar se desactiva el botón agregar
-        idProhibitedCharacter.visibleProperty().addListener(listenerAddButton); //si hay un carácter prohibido se desactiva el botón agregar
-        idFlightIsExists.visibleProperty().addListener(listenerAddButton); //si el vuelo ya existe se desactiva el botón agregar
+        //deshacer y rehacer solo si hay cambios en el historial
+        idUndoButton.disableProperty().bind(history.canUndoProperty().not());
+        idRedoButton.disableProperty().bind(history.canRedoProperty().not());
 
         //habilitar botón eliminar cuando un item de la tabla este seleccionado y el botón actualizar desactivado
         idVuelosTableView.getSelectionModel().selectedItemProperty().addListener((_, _, newValue) -> {
@@ -216,24 +456,59 @@ public class FXMLMainViewController {
                         "Show all flights",
                         "Show flights to currently selected city",
                         "Show long flights",
-                        "Show next 5 flights",
-                        "Show flight duration average"
+                        "Show next flights",
+                        "Show flight duration average",
+                        "Show schedule conflicts"
                 )
         );
         idOptionSearchChoiceBox.setItems(
                 FXCollections.observableArrayList(
                         "Flight number",
                         "Destination",
-                        "Departure time")
+                        "Departure time",
+                        "Departure range",
+                        "Duration range")
         );
 
+        //las búsquedas por rango usan el campo de búsqueda como inicio y muestran el campo del final
+        idOptionSearchChoiceBox.valueProperty().addListener((_, _, option) -> {
+            boolean range = isRangeSearch(option);
+            idSearchToTextField.setVisible(range);
+            idSearchToTextField.setManaged(range);
+            idSearchTextField.setPromptText(range ? "from" : "date or flight");
+            idSearchToTextField.setPromptText("Duration range".equals(option) ? "to (hh:mm)" : "to (date or hh:mm)");
+        });
+
         idFiltersChoiceBox.getSelectionModel().selectFirst();
         idOptionSearchChoiceBox.getSelectionModel().selectFirst();
 
-        //cargar la lista de vuelos
-        List<Flight> flightsList = FileUtils.getFlights();
-        flightsObsList = FXCollections.observableArrayList(flightsList != null ? flightsList : List.of());
+        //número de próximos vuelos, si cambia mientras se muestran se actualiza la tabla
+        idNextFlightsSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 100, 5));
+        idNextFlightsSpinner.valueProperty().addListener((_, _, _) -> {
+            if (isShowingNextFlights()) showNextFlights();
+        });
+        nextFlightsTimer.setOnFinished(_ -> {
+            if (isShowingNextFlights()) showNextFlights();
+        });
+
+        //cargar la lista de vuelos en segundo plano, la tabla se llena a medida que llegan los lotes
+        flightsObsList = repository.getFlights();
+
+        //los próximos vuelos y los conflictos son copias: se recalculan cuando cambia la lista (alta, baja,
+        //actualización, deshacer o vuelos añadidos externamente), una sola vez tras varios cambios seguidos
+        flightsObsList.addListener((ListChangeListener<Flight>) _ -> {
+            if (isShowingNextFlights() || isShowingScheduleConflicts()) refreshDelay.playFromStart();
+        });
+        refreshDelay.setOnFinished(_ -> {
+            if (isShowingNextFlights()) showNextFlights();
+            if (isShowingScheduleConflicts()) showScheduleConflicts();
+        });
         idVuelosTableView.setItems(flightsObsList);
+        if (pagedView) {
+            startPagedView();
+        } else {
+            startLoadFlights();
+        }
 
         // Cargar los datos en la tabla
         idFlightNumberColumn.setCellValueFactory(new PropertyValueFactory<>("flightNumber"));
@@ -247,22 +522,152 @@ public class FXMLMainViewController {
         //restringir carácter ;
         restringCharacters();
 
-        //listener en los campos de entrada para verificar si el vuelo ya existe, no se aplica en el proceso de actualización
-        List<TextField> fields = listFields();
-        fields.forEach(field -> field.textProperty().addListener((_, _, _) -> {
-            if (idUpdateFlightButton.isDisable()) {
-                restringFlightExists();
+        //listener en los campos de entrada para validarlos, la comprobación de si el vuelo existe se hace al dejar de escribir
+        listFields().forEach(field -> field.textProperty().addListener((_, _, _) -> scheduleValidation()));
+        validationDelay.setOnFinished(_ -> restringFlightExists());
+
+        //búsqueda mientras se escribe por número de vuelo o destino, al dejar de escribir
+        idSearchTextField.textProperty().addListener((_, _, _) -> searchDelay.playFromStart());
+        idOptionSearchChoiceBox.valueProperty().addListener((_, _, _) -> searchDelay.playFromStart());
+        searchDelay.setOnFinished(_ -> searchAsYouType());
+
+        resetToInitialState(); //asegurar la vista inicial
+    }
+
+    /**
+     * Inicia la carga de vuelos desde el archivo en un hilo en segundo plano.
+     * Muestra la barra de progreso mientras dura la carga y la oculta al terminar, al fallar o al cancelarse.
+     */
+    private void startLoadFlights() {
+        loadTask = new FlightsLoadTask(flightsObsList);
+        bindLoadProgress(loadTask);
+
+        loadTask.setOnSucceeded(_ -> {
+            logger.log(Level.INFO, "Vuelos cargados: {0}", loadTask.getValue());
+            if (loadTask.getJournalEntries() > 0) {
+                journal.compact(flightsObsList); //incorporar al archivo los cambios de la sesión anterior
             }
-        }));
+            startFileWatcher(loadTask.getBytesRead());
+        });
+        loadTask.setOnFailed(_ -> {
+            partialLoad = true;
+            logger.log(Level.SEVERE, "Error al cargar los vuelos", loadTask.getException());
+            MessageUtils.showError("Error al cargar los vuelos desde el archivo");
+        });
+        loadTask.setOnCancelled(_ -> {
+            partialLoad = true;
+            MessageUtils.showWarning("La carga de vuelos se canceló. Solo se muestran los vuelos cargados hasta el momento.");
+        });
+
+        Thread loadThread = new Thread(loadTask, "flights-loader");
+        loadThread.setDaemon(true);
+        loadThread.start();
+    }
+
+    /**
+     * Empieza a vigilar flights.txt para incorporar los vuelos que otras aplicaciones añaden mientras está abierta,
+     * véase {@link FlightsFileWatcher}. El archivo binario no se vigila.
+     * @param loadedBytes número de bytes del archivo ya cargados en la lista.
+     */
+    private void startFileWatcher(long loadedBytes) {
+        if (FileUtils.getStoreFormat() != FileUtils.StoreFormat.TEXT) return;
+        try {
+            fileWatcher = FlightsFileWatcher.start(flightsObsList, loadedBytes);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "No se pueden vigilar los cambios externos en flights.txt", ex);
+        }
+    }
 
-        //listener para el campo de entrada del número de vuelo para verificar si hay caracteres prohibidos
-        idFlightNumberTextField.textProperty().addListener((_, _, _) -> {
-            if (idUpdateFlightButton.isDisable()) {
-                formatFlightNumber(idFlightNumberTextField);
+    /**
+     * Abre los vuelos guardados en un hilo en segundo plano, con el diario ya aplicado, véase
+     * {@link FileUtils#openPagedStore()}, y los muestra en la tabla mediante una {@link PagedFlightList},
+     * que solo crea los vuelos de las filas visibles. La vista es de solo lectura:
+     * no se permiten cambios, filtros ni búsquedas, y la lista en memoria del repositorio queda vacía.
+     */
+    private void startPagedView() {
+        partialLoad = true; //la lista del repositorio está vacía, no se debe sobrescribir el archivo con ella
+        idVuelosTableView.getColumns().forEach(column -> column.setSortable(false));
+
+        Task<FlightStore> openTask = new Task<>() {
+            @Override
+            protected FlightStore call() throws Exception {
+                updateMessage("Abriendo " + FileUtils.getStoreFile().getFileName() + "...");
+                return FileUtils.openPagedStore();
             }
+        };
+        bindLoadProgress(openTask);
+        openTask.setOnSucceeded(_ -> {
+            repository.setPagedStore(openTask.getValue());
+            flightsObsList = new PagedFlightList(openTask.getValue());
+            idVuelosTableView.setItems(flightsObsList);
+            logger.log(Level.INFO, "Vista paginada de {0} vuelos", flightsObsList.size());
+        });
+        openTask.setOnFailed(_ -> {
+            logger.log(Level.SEVERE, "Error al abrir el archivo de vuelos", openTask.getException());
+            MessageUtils.showError("Error al abrir el archivo de vuelos");
         });
 
-        resetToInitialState(); //asegurar la vista inicial
+        Thread openThread = new Thread(openTask, "flights-loader");
+        openThread.setDaemon(true);
+        openThread.start();
+    }
+
+    /**
+     * Muestra la barra de progreso mientras se ejecuta una tarea de carga.
+     * @param task tarea de carga.
+     */
+    private void bindLoadProgress(Task<?> task) {
+        idLoadProgressBar.progressProperty().bind(task.progressProperty());
+        idLoadStatusLabel.textProperty().bind(task.messageProperty());
+        idLoadProgressHBox.managedProperty().bind(idLoadProgressHBox.visibleProperty());
+        idLoadProgressHBox.visibleProperty().bind(task.runningProperty());
+    }
+
+    /**
+     * Asociado a la acción de clic en el botón "Cancel" de la barra de progreso.
+     * Cancela la carga de vuelos en curso, los vuelos ya cargados se mantienen en la tabla.
+     */
+    @FXML
+    public void cancelLoad() {
+        if (loadTask != null) {
+            loadTask.cancel();
+        }
+    }
+
+    /**
+     * Verifica si la carga de vuelos sigue en curso. Si es así, muestra una advertencia,
+     * ya que no se puede modificar la lista hasta que esté completa.
+     * @return {@code true} si la carga sigue en curso, de lo contrario {@code false}.
+     */
+    private boolean validateLoading() {
+        if (loadTask != null && loadTask.isRunning()) {
+            MessageUtils.showWarning("Espere a que termine la carga de vuelos");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Verifica si la tabla muestra la vista paginada. Si es así, muestra una advertencia,
+     * ya que la vista paginada es de solo lectura.
+     * @return {@code true} si la vista es de solo lectura, de lo contrario {@code false}.
+     */
+    private boolean validateReadOnly() {
+        if (pagedView) {
+            MessageUtils.showWarning("La vista paginada es de solo lectura");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compacta el diario de cambios si ha acumulado suficientes registros,
+     * salvo que la carga haya quedado incompleta, ya que se perderían los vuelos sin cargar.
+     */
+    private void compactJournal() {
+        if (!partialLoad) {
+            journal.compactIfNeeded(flightsObsList);
+        }
     }
 
     /**
@@ -291,46 +696,111 @@ public class FXMLMainViewController {
     }
 
     /**
-     * Formatea el número de vuelo ingresado en el campo de texto para que sea válido.
-     * Asegura que el número de vuelo esté en mayúsculas y contenga solo caracteres alfanuméricos.
-     * El botón de agregar vuelo se habilita solo si el formato es correcto.
+     * Formatea el número de vuelo ingresado en el campo de texto, convirtiéndolo a mayúsculas si es válido.
+     * El listener se registra una sola vez, al inicializar la vista.
      * @param numberTextField Campo de texto del número de vuelo.
      */
     private void formatFlightNumber(TextField numberTextField) {
         numberTextField.textProperty().addListener((_, _, newText) -> {
-
-            String formattedText = newText.toUpperCase();
-            boolean isValid = formattedText.matches("[A-Z0-9]*");
-            if (isValid) {
+            String formattedText = newText.toUpperCase(Locale.ROOT);
+            if (isValidFlightNumber(formattedText)) {
                 numberTextField.setText(formattedText);  // Aplica el texto formateado
-                idProhibitedCharacter.setVisible(false);  // Oculta el mensaje de error
-                idAddButton.setDisable(false); // Habilita el botón
-            } else {
-                idProhibitedCharacter.setVisible(true);  // Muestra el mensaje de error
-                idAddButton.setDisable(true); // Deshabilita el botón
             }
         });
     }
 
     /**
-     * Verifica si el vuelo ya existe en la lista.
-     * Formatea la hora de salida y la duración para que coincidan con el formato del registro.
-     * Se visibiliza el mensaje de error contenido en un label si el vuelo ya existe, de lo contrario, se oculta.
+     * Comprueba si un número de vuelo en mayúsculas contiene solo caracteres alfanuméricos [A-Z0-9].
+     * @param flightNumber número de vuelo.
+     * @return {@code true} si el número de vuelo es válido, de lo contrario {@code false}.
+     */
+    private static boolean isValidFlightNumber(String flightNumber) {
+        for (int i = 0; i < flightNumber.length(); i++) {
+            char c = flightNumber.charAt(i);
+            if ((c < 'A' || c > 'Z') && (c < '0' || c > '9')) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Valida los campos de entrada cada vez que cambian.
+     * Los caracteres prohibidos del número de vuelo se comprueban al momento, ya que es inmediato.
+     * La comprobación de si el vuelo existe se cancela si estaba en curso y se retrasa hasta que se deja de escribir,
+     * no se aplica en el proceso de actualización.
+     */
+    private void scheduleValidation() {
+        cancelExistsCheck();
+        if (!isValidFlightNumber(idFlightNumberTextField.getText().toUpperCase(Locale.ROOT))) {
+            validationDelay.stop();
+            validationState.set(ValidationState.PROHIBITED_CHARACTER);
+            return;
+        }
+        validationState.set(ValidationState.VALID);
+        if (idUpdateFlightButton.isDisable()) {
+            validationDelay.playFromStart();
+        } else {
+            validationDelay.stop();
+        }
+    }
+
+    /**
+     * Verifica si el vuelo de los campos de entrada ya existe en la lista, cuando se deja de escribir.
+     * Formatea la hora de salida y la duración para que coincidan con el formato del registro y
+     * comprueba si el vuelo existe en un hilo en segundo plano. Si el vuelo existe, el estado de validación
+     * pasa a {@link ValidationState#FLIGHT_EXISTS}, salvo que los campos hayan cambiado mientras tanto.
      */
     private void restringFlightExists() {
+        if (!idUpdateFlightButton.isDisable() || validationState.get() != ValidationState.VALID) return;
+
+        String flightNumber = idFlightNumberTextField.getText();
+        String destination = idDestinationTextField.getText();
+        LocalDateTime departureTime;
+        LocalTime duration;
         try {
             // Convertir los valores ingresados
-            LocalDateTime departureTime = LocalDateTime.parse(idDepartureTextField.getText(), DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-            LocalTime duration = LocalTime.parse(idDurationTextField.getText(), DateTimeFormatter.ofPattern("H:mm")); //formato es hh:mm, para el patrón se usa H
+            departureTime = LocalDateTime.parse(idDepartureTextField.getText(), FlightParser.DEPARTURE_FORMAT);
+            duration = LocalTime.parse(idDurationTextField.getText(), FlightParser.DURATION_FORMAT);
+        } catch (DateTimeParseException e) {
+            return; //los campos aún no están completos
+        }
 
-            // Verificar si el vuelo ya existe
-            boolean flightExists = validateFlightExists(idFlightNumberTextField.getText(), idDestinationTextField.getText(), departureTime, duration);
-            idFlightIsExists.setVisible(flightExists); // Muestra el mensaje de error dentro de la interfaz
-        } catch (Exception e) {
-            idFlightIsExists.setVisible(false);
+        // Verificar si el vuelo ya existe
+        Task<Boolean> task = new Task<>() {
+            @Override
+            protected Boolean call() {
+                return repository.contains(flightNumber, destination, departureTime, duration);
+            }
+        };
+        task.setOnSucceeded(_ -> {
+            if (task != existsTask) return; //los campos cambiaron, el resultado ya no es válido
+            existsTask = null;
+            if (task.getValue()) {
+                validationState.set(ValidationState.FLIGHT_EXISTS); // Muestra el mensaje de error dentro de la interfaz
+            }
+        });
+        existsTask = task;
+        validationExecutor.execute(task);
+    }
+
+    /**
+     * Cancela la comprobación de si el vuelo existe, si hay una en curso.
+     */
+    private void cancelExistsCheck() {
+        if (existsTask != null) {
+            existsTask.cancel();
+            existsTask = null;
         }
     }
 
+    /**
+     * Restablece la validación de los campos de entrada, cancelando las comprobaciones pendientes.
+     */
+    private void resetValidation() {
+        validationDelay.stop();
+        cancelExistsCheck();
+        validationState.set(ValidationState.VALID);
+    }
+
     /**
      * Asociado a la acción de clic en el botón "Add".
      * Agrega un nuevo vuelo a la tabla y a la lista de vuelos observables.
@@ -340,6 +810,8 @@ public class FXMLMainViewController {
      */
     @FXML
     public void addFlight() {
+        if (validateReadOnly() || validateLoading()) return;
+
         String flightNumber = idFlightNumberTextField.getText();
         String destination = idDestinationTextField.getText();
         String departureTimeText = idDepartureTextField.getText();
@@ -359,13 +831,16 @@ public class FXMLMainViewController {
         //validar si el vuelo ya existe utilizando el método listFields y stream
         if (validateFlightExists(flightNumber, destination, departureTime, duration)) return;
 
-        //crear nuevo vuelo, agregarlo a la lista y a la tabla
+        //crear nuevo vuelo, confirmar si se solapa con otro del mismo número, agregarlo a la lista y a la tabla
         Flight newFlight = new Flight(flightNumber, destination, departureTime, duration);
+        if (!confirmConflicts(repository.findConflicts(newFlight, null))) return;
         flightsObsList.add(newFlight);
+        journal.recordAdd(newFlight);
+        history.record(new FlightJournal.Entry(FlightJournal.Operation.ADD, newFlight, null));
 
         //uso de try catch para validar que se guardó el vuelo en el fichero y registrarlo en el log
         try {
-            FileUtils.saveFlightsToFile(flightsObsList); //guardar vuelo en el fichero
+            compactJournal(); //el vuelo ya quedó registrado en el diario
             clearFields();  //limpiar campos
             idFlightNumberTextField.requestFocus();
         } catch (Exception e) {
@@ -419,7 +894,7 @@ public class FXMLMainViewController {
 
     /**
      * Verifica si un vuelo ya existe en la lista observable de vuelos.
-     * Realiza la comparación utilizando streams con el método anyMatch.
+     * Realiza la búsqueda en el índice hash del repositorio, en tiempo constante.
      * @param flightNumber Número del vuelo.
      * @param destination Destino del vuelo.
      * @param departureTime Hora de salida del vuelo.
@@ -427,8 +902,7 @@ public class FXMLMainViewController {
      * @return {@code true} si el vuelo ya existe; de lo contrario, {@code false}.
      */
     private boolean validateFlightExists(String flightNumber, String destination, LocalDateTime departureTime, LocalTime duration) {
-        return flightsObsList.stream()
-                .anyMatch(flight -> flight.equals(new Flight(flightNumber, destination, departureTime, duration)));
+        return repository.contains(flightNumber, destination, departureTime, duration);
     }
 
     /**
@@ -452,15 +926,22 @@ public class FXMLMainViewController {
      */
     @FXML
     public void deleteFlight( ) {
+        if (validateReadOnly() || validateLoading()) return;
+
         Flight flight = idVuelosTableView.getSelectionModel().getSelectedItem();
         if (!confirmDeleteFlight(flight)) {
             return;
         }
         try {
-            idVuelosTableView.getItems().remove(flight);// eliminar vuelo de la tabla
+            //las vistas filtradas se actualizan solas, solo la lista de los próximos vuelos es una copia
+            if (idVuelosTableView.getItems() != flightsObsList && !(idVuelosTableView.getItems() instanceof SortedList)) {
+                idVuelosTableView.getItems().remove(flight);// eliminar vuelo de la tabla filtrada
+            }
             flightsObsList.remove(flight); // eliminar vuelo de la lista
+            journal.recordDelete(flight); // registrar la eliminación en el diario
+            history.record(new FlightJournal.Entry(FlightJournal.Operation.DELETE, flight, null));
             idVuelosTableView.getSelectionModel().clearSelection(); // limpiar campos
-            FileUtils.saveFlightsToFile(flightsObsList); // guardar lista de vuelos actualizada en el fichero
+            compactJournal();
             idFlightNumberTextField.requestFocus(); //poner el foco en el field flightNumber
         } catch (Exception e) {
             //logger.log(Level.SEVERE, "No se pudo eliminar el vuelo: " + flight, e);
@@ -481,7 +962,7 @@ public class FXMLMainViewController {
      * Asociado a la acción de clic en el botón "Apply Filter".
      * Si no hay vuelos para filtrar, se muestra un mensaje de error.
      * Los filtros disponibles incluyen: mostrar todos los vuelos, mostrar vuelos a una ciudad seleccionada, mostrar vuelos largos,
-     * mostrar los próximos 5 vuelos o mostrar el promedio de duración de los vuelos.
+     * mostrar los próximos vuelos o mostrar el promedio de duración de los vuelos.
      * Aplica un filtro a la tabla de vuelos basado en la opción seleccionada.
      * Si el filtro seleccionado es "Show all flights", se muestra todos los vuelos y restablece la vista a su estado inicial.
      * Si rl filtro seleccionado es "Show flight duration average",
@@ -490,6 +971,7 @@ public class FXMLMainViewController {
      */
     @FXML
     public void applyFilter() {
+        if (validateReadOnly()) return;
 
         //si no hay vuelos un mensaje de error de tipo alert
         if (flightsObsList.isEmpty()) {
@@ -506,7 +988,8 @@ public class FXMLMainViewController {
             }
             case "Show flights to currently selected city" -> showFlightsToSelectedCity();
             case "Show long flights" -> showLongFlights();
-            case "Show next 5 flights" -> showNext5Flights();
+            case "Show next flights" -> showNextFlights();
+            case "Show schedule conflicts" -> showScheduleConflicts();
             case "Show flight duration average" -> {
                 showFlightDurationAverage();
                 //restaurar a la tabla de vuelos a su estado inicial después del dialog alert de la duración promedio
@@ -537,8 +1020,8 @@ public class FXMLMainViewController {
     /**
      * Muestra los vuelos hacia la ciudad seleccionada en la tabla.
      * Se valida que se haya seleccionado un vuelo. Si no se ha seleccionado, se muestra un mensaje de error.
-     * Si se ha seleccionado un vuelo, se filtran los vuelos hacia la ciudad seleccionada.
-     * Se muestran en la tabla la lista filtrada.
+     * Si se ha seleccionado un vuelo, se muestra una vista de los vuelos hacia la ciudad seleccionada,
+     * obtenida del índice por destino del repositorio.
      */
     private void showFlightsToSelectedCity() {
         //antes de filtrar validar que esté seleccionado un vuelo
@@ -549,51 +1032,194 @@ public class FXMLMainViewController {
         }
 
         String selectedCity = flight.getDestination(); //nombre de la ciudad
-        ObservableList<Flight> filteredFlights = flightsObsList.stream()
-                .filter(f -> f.getDestination().equals(selectedCity)) //compara las ciudades
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-        idVuelosTableView.setItems(filteredFlights);
+        destinationFilter = FlightFilter.destination(selectedCity);
+        showFilteredFlights(filterFlights(destinationFilter, "ui.applyFilter", "Destination"));
+        destinationView = idVuelosTableView.getItems();
         idVuelosTableView.getSelectionModel().clearSelection(); //quitar selección para que botón delete este deshabilitado
     }
 
     /**
      * Muestra los vuelos con una duración mayor a 3 horas (180 minutos).
-     * Con streams, se filtran los vuelos mayores a 3 horas y se muestran en la tabla la lista filtrada.
      */
     private void showLongFlights() {
-        ObservableList<Flight> filteredFlights = flightsObsList.stream()
-                .filter(flightFiltered -> flightFiltered.getDuration().getHour() * 60 //convertir horas a minutos
-                        + flightFiltered.getDuration().getMinute() > 180)
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-        idVuelosTableView.setItems(filteredFlights);
+        showFilteredFlights(filterFlights(FlightFilter.longerThan(180), "ui.applyFilter", "Long flights"));
+    }
+
+    /**
+     * Obtiene la vista filtrada de los vuelos del repositorio y registra en {@link Metrics}
+     * y como evento de JFR el tiempo que tarda y el número de vuelos obtenidos.
+     * @param filter filtro a aplicar.
+     * @param metric nombre de la métrica.
+     * @param name nombre del filtro en el evento de JFR.
+     * @return la vista de los vuelos que cumplen el filtro.
+     */
+    private ObservableList<Flight> filterFlights(FlightFilter filter, String metric, String name) {
+        FlightEvents.FilterApplied event = new FlightEvents.FilterApplied();
+        event.begin();
+        long start = System.nanoTime();
+        ObservableList<Flight> flights = repository.filter(filter);
+        recordFilter(event, start, metric, name, flights.size());
+        return flights;
+    }
+
+    /**
+     * Registra en {@link Metrics} y como evento de JFR el tiempo de un filtro o búsqueda y el número de vuelos obtenidos.
+     */
+    private static void recordFilter(FlightEvents.FilterApplied event, long start, String metric, String name, int rows) {
+        Metrics.timer(metric).stop(start);
+        Metrics.counter(metric + ".rows").add(rows);
+        event.filter = name;
+        event.rows = rows;
+        event.commit();
+    }
+
+    /**
+     * Muestra en la tabla una vista filtrada de los vuelos, que se actualiza sola cuando cambia la lista.
+     * La vista se ordena según las columnas de la tabla mediante una {@link SortedList}.
+     * @param flights vista de los vuelos a mostrar, obtenida con {@link FlightRepository#filter(FlightFilter)}.
+     */
+    private void showFilteredFlights(ObservableList<Flight> flights) {
+        SortedList<Flight> sortedFlights = new SortedList<>(flights);
+        sortedFlights.comparatorProperty().bind(idVuelosTableView.comparatorProperty());
+        idVuelosTableView.setItems(sortedFlights);
+    }
+
+    /**
+     * Muestra los próximos vuelos según la fecha y hora de partida, tantos como indique el spinner.
+     * Los vuelos se obtienen del índice por hora de salida del repositorio, sin recorrer ni ordenar la lista.
+     * Mientras la tabla muestra este filtro, se actualiza automáticamente cuando sale el primero de los vuelos
+     * y cuando cambia la lista de vuelos.
+     */
+    private void showNextFlights() {
+        LocalDateTime now = LocalDateTime.now();
+        FlightEvents.FilterApplied event = new FlightEvents.FilterApplied();
+        event.begin();
+        long start = System.nanoTime();
+        List<Flight> flights = repository.findNextDepartures(now, idNextFlightsSpinner.getValue());
+        recordFilter(event, start, "ui.applyFilter", "Next flights", flights.size());
+        if (isShowingNextFlights()) {
+            nextFlights.setAll(flights);
+        } else {
+            nextFlights = FXCollections.observableArrayList(flights);
+            idVuelosTableView.setItems(nextFlights);
+        }
+
+        //programar la siguiente actualización para cuando salga el primer vuelo
+        nextFlightsTimer.stop();
+        if (!flights.isEmpty()) {
+            long millis = java.time.Duration.between(now, flights.getFirst().getDepartureTime()).toMillis();
+            nextFlightsTimer.setDuration(Duration.millis(millis + 1));
+            nextFlightsTimer.playFromStart();
+        }
+    }
+
+    /**
+     * Muestra los vuelos con conflictos de horario: vuelos con el mismo número que están en el aire a la vez.
+     * Los conflictos se buscan en segundo plano con {@link ScheduleConflicts#findAll(java.util.Collection)}
+     * sobre una copia de la lista, ya que con millones de vuelos el barrido tarda más de lo que puede
+     * bloquearse la interfaz. La tabla muestra los vuelos en conflicto ordenados por número y salida.
+     * Mientras la tabla muestra este filtro, los conflictos se vuelven a buscar cuando cambia la lista de vuelos;
+     * si se inicia una búsqueda nueva, la anterior se cancela y su resultado se descarta.
+     */
+    private void showScheduleConflicts() {
+        boolean refresh = isShowingScheduleConflicts();
+        List<Flight> flights = List.copyOf(flightsObsList);
+        FlightEvents.FilterApplied event = new FlightEvents.FilterApplied();
+        event.begin();
+        long start = System.nanoTime();
+        if (conflictsTask != null) conflictsTask.cancel();
+        Task<List<ScheduleConflicts.Conflict>> task = new Task<>() {
+            @Override
+            protected List<ScheduleConflicts.Conflict> call() {
+                return ScheduleConflicts.findAll(flights);
+            }
+        };
+        conflictsTask = task;
+        task.setOnSucceeded(_ -> {
+            conflictsTask = null;
+            if (refresh && !isShowingScheduleConflicts()) return; //la tabla ya muestra otra vista
+            List<ScheduleConflicts.Conflict> conflicts = task.getValue();
+            Set<Flight> involved = new LinkedHashSet<>();
+            for (ScheduleConflicts.Conflict conflict : conflicts) {
+                involved.add(conflict.first());
+                involved.add(conflict.second());
+            }
+            recordFilter(event, start, "ui.applyFilter", "Schedule conflicts", involved.size());
+            logger.log(Level.INFO, "Conflictos de horario: {0}", conflicts.size());
+            if (conflicts.isEmpty()) {
+                if (refresh) {
+                    //se resolvió el último conflicto: la tabla deja de mostrar los vuelos que ya no lo están
+                    conflictFlights.clear();
+                    showAllFlights();
+                } else {
+                    MessageUtils.showMessage("No hay conflictos de horario");
+                }
+                idFiltersChoiceBox.setValue("Show all flights");
+                return;
+            }
+            List<Flight> sorted = new ArrayList<>(involved);
+            sorted.sort(Comparator.comparing((Flight flight) -> flight.getFlightNumber().toUpperCase(Locale.ROOT))
+                    .thenComparing(Flight::getDepartureTime));
+            if (refresh) {
+                conflictFlights.setAll(sorted);
+                return;
+            }
+            conflictFlights = FXCollections.observableArrayList(sorted);
+            idVuelosTableView.setItems(conflictFlights);
+            MessageUtils.showMessage(String.format("Conflictos de horario: %d, entre %d vuelos", conflicts.size(), sorted.size()));
+        });
+        task.setOnFailed(_ -> {
+            if (conflictsTask == task) conflictsTask = null;
+            logger.log(Level.SEVERE, "Error al buscar conflictos de horario", task.getException());
+            MessageUtils.showError("No se pudieron buscar los conflictos de horario");
+        });
+
+        Thread conflictsThread = new Thread(task, "flights-conflicts");
+        conflictsThread.setDaemon(true);
+        conflictsThread.start();
+    }
+
+    /**
+     * Método auxiliar.
+     * Si el vuelo que se va a agregar o actualizar se solapa con otros del mismo número, los muestra
+     * y pide confirmación para continuar.
+     * @param conflicts vuelos en conflicto, véase {@link FlightRepository#findConflicts(Flight, Flight)}.
+     * @return {@code true} si no hay conflictos o el usuario confirma, de lo contrario {@code false}.
+     */
+    private boolean confirmConflicts(List<Flight> conflicts) {
+        if (conflicts.isEmpty()) return true;
+        StringBuilder message = new StringBuilder("El vuelo se solapa con otros vuelos con el mismo número:\n");
+        conflicts.stream().limit(5).forEach(flight -> message.append(' ').append(flight).append('\n'));
+        if (conflicts.size() > 5) message.append(" ... y ").append(conflicts.size() - 5).append(" más\n");
+        return MessageUtils.showConfirmation(message.append("¿Desea continuar?").toString());
+    }
+
+    /**
+     * Comprueba si la tabla muestra los próximos vuelos.
+     * @return {@code true} si la tabla muestra la lista del filtro "Show next flights".
+     */
+    private boolean isShowingNextFlights() {
+        return nextFlights != null && idVuelosTableView.getItems() == nextFlights;
     }
 
     /**
-     * Muestra los próximos 5 vuelos según la fecha y hora de partida.
-     * Con streams se filtran los vuelos con fecha y hora de partida posterior a la fecha y hora actual del sistema.
-     * Se muestra la lista filtrada en la tabla.
+     * Comprueba si la tabla muestra los conflictos de horario.
+     * @return {@code true} si la tabla muestra la lista del filtro "Show schedule conflicts".
      */
-    private void showNext5Flights() {
-        ObservableList<Flight> filteredFlights = flightsObsList.stream()
-                .filter(flightFiltered -> flightFiltered.getDepartureTime().isAfter(LocalDateTime.now()))
-                .sorted(Comparator.comparing(Flight::getDepartureTime))
-                .limit(5)
-                .collect(Collectors.toCollection(FXCollections::observableArrayList));
-        idVuelosTableView.setItems(filteredFlights);
+    private boolean isShowingScheduleConflicts() {
+        return conflictFlights != null && idVuelosTableView.getItems() == conflictFlights;
     }
 
     /**
-     * Calcula y muestra la duración promedio de todos los vuelos en horas y minutos.
+     * Muestra la duración promedio de todos los vuelos en horas y minutos.
      * Si no hay vuelos, muestra un mensaje de error.
      * Si hay vuelos, muestra la duración promedio en un alert.
-     * Con streams se calcula la duración promedio de todos los vuelos en minutos.
+     * La duración promedio en minutos se obtiene de las estadísticas del repositorio, que se mantienen
+     * actualizadas con cada cambio de la lista, sin recorrerla.
      * Se parsea la duración promedio a horas y minutos.
      */
     private void showFlightDurationAverage() {
-        //convertir duration en minutos y promediarlos para obtener la duración media en minutos
-        OptionalDouble averageDuration = flightsObsList.stream()
-                .mapToDouble(flight -> flight.getDuration().getHour() * 60 + flight.getDuration().getMinute())
-                .average();
+        OptionalDouble averageDuration = repository.getStatistics().getAverageDuration();
         //mostrar la duración media en horas y minutos en un alert
         if (averageDuration.isPresent()) {
             //obtener la duración media en horas y minutos
@@ -613,19 +1239,45 @@ public class FXMLMainViewController {
      */
     @FXML
     public void searchFlight() {
+        if (validateReadOnly()) return;
         String selectedOption = idOptionSearchChoiceBox.getValue();
         String flightData = idSearchTextField.getText();
 
-        if (flightData.isEmpty()){
+        if (flightData.isEmpty() || isRangeSearch(selectedOption) && idSearchToTextField.getText().isEmpty()){
             MessageUtils.showError("No hay dato para buscar");
             return;
         }
         foundFlights(flightData, selectedOption);
     }
 
+    /**
+     * Busca los vuelos mientras se escribe en el campo de búsqueda y los muestra en la tabla, de mejor a peor coincidencia:
+     * los números de vuelo que empiezan por el texto o los destinos que empiezan por él, lo contienen o se le parecen.
+     * Se muestran como máximo {@value #SEARCH_LIMIT} vuelos, obtenidos de los índices del repositorio.
+     * Si se borra el texto, vuelve a mostrar todos los vuelos. No busca por fecha de salida ni por rangos, que solo se
+     * buscan completos con el botón "Search", ni mientras se actualiza un vuelo.
+     */
+    private void searchAsYouType() {
+        if (pagedView || !idUpdateFlightButton.isDisable()) return;
+        String text = idSearchTextField.getText().strip();
+        String searchBy = idOptionSearchChoiceBox.getValue();
+        boolean showingResults = searchResults != null && idVuelosTableView.getItems() == searchResults;
+        if (text.isEmpty() || !"Flight number".equals(searchBy) && !"Destination".equals(searchBy)) {
+            if (showingResults) idVuelosTableView.setItems(flightsObsList);
+            return;
+        }
+        FlightFilter filter = "Destination".equals(searchBy)
+                ? FlightFilter.destinationMatching(text, SEARCH_LIMIT)
+                : FlightFilter.flightNumberPrefix(text, SEARCH_LIMIT);
+        showFilteredFlights(filterFlights(filter, "ui.searchAsYouType", searchBy));
+        searchResults = idVuelosTableView.getItems();
+    }
+
     /**
      * Método que realiza la búsqueda de vuelos, según el criterio de búsqueda seleccionado.
-     * Filtra la lista de vuelo según el número de vuelo, el destino o la fecha y hora de salida.
+     * Busca en los índices del repositorio según el número de vuelo, el destino, la fecha y hora de salida
+     * o un rango de salida o de duración. Si la tabla muestra los vuelos de un destino, la búsqueda por rango
+     * se limita a ese destino. El resultado es una vista que se actualiza sola cuando cambia la lista de vuelos.
      * Si encuentra un o más vuelos, muestra la tabla con los vuelos encontrados, se habilita el botón "Update"
      * y el listener para la selección de la tabla.
      * Sí no encuentra ningúno vuelo, muestra un mensaje de información.
@@ -633,41 +1285,102 @@ public class FXMLMainViewController {
      * @param searchBy   Tipo de búsqueda (número, destino, hora de salida).
      */
     private void foundFlights(String flightData, String searchBy) {
-        ObservableList<Flight> filteredFlights = FXCollections.observableArrayList();
-
+        FlightFilter filter;
+        FlightFilter viewDestination = null; //destino de la vista resultante, para acotar las búsquedas por rango
         switch (searchBy) {
-            case "Flight number" -> filteredFlights = flightsObsList.stream()
-                    .filter(f -> f.getFlightNumber().equalsIgnoreCase(flightData))
-                    .collect(Collectors.toCollection(FXCollections::observableArrayList));
-            case "Destination" -> filteredFlights = flightsObsList.stream()
-                    .filter(f -> f.getDestination().equalsIgnoreCase(flightData))
-                    .collect(Collectors.toCollection(FXCollections::observableArrayList));
+            case "Flight number" -> filter = FlightFilter.flightNumber(flightData);
+            case "Destination" -> {
+                filter = viewDestination = FlightFilter.destination(flightData);
+            }
             case "Departure time" -> {
                 try {
                     LocalDateTime searchDate = LocalDateTime.parse(flightData, DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
-                    filteredFlights = flightsObsList.stream()
-                            .filter(f -> f.getDepartureTime().equals(searchDate))
-                            .collect(Collectors.toCollection(FXCollections::observableArrayList));
+                    filter = FlightFilter.departureAt(searchDate);
                 } catch (DateTimeParseException e) {
                     MessageUtils.showError("Formato de fecha incorrecto");
                     return;
                 }
             }
+            case "Departure range", "Duration range" -> {
+                filter = rangeFilter(searchBy, flightData, idSearchToTextField.getText());
+                if (filter == null) return;
+                if (destinationFilter != null && idVuelosTableView.getItems() == destinationView) {
+                    filter = filter.and(destinationFilter); //acotar los vuelos al destino que muestra la tabla
+                    searchBy = searchBy + " + Destination";
+                    viewDestination = destinationFilter;
+                }
+            }
+            default -> {
+                return;
+            }
         }
+        ObservableList<Flight> filteredFlights = filterFlights(filter, "ui.search", searchBy);
         if (!filteredFlights.isEmpty()) {
-            idVuelosTableView.setItems(filteredFlights);
+            showFilteredFlights(filteredFlights);
+            if (viewDestination != null) {
+                destinationFilter = viewDestination;
+                destinationView = idVuelosTableView.getItems();
+            }
             idUpdateFlightButton.setDisable(false);
             idVuelosTableView.getSelectionModel().selectedItemProperty().addListener(this::handleTableSelection);
-            idFlightIsExists.setVisible(false);
+            resetValidation();
         }else {
             MessageUtils.showMessage("No se encontraron vuelos");
         }
     }
 
+    /**
+     * Método auxiliar.
+     * Obtiene el filtro de una búsqueda por rango, que el repositorio resuelve con sus índices ordenados.
+     * En el rango de salida, el final puede ser solo una hora (hh:mm) del mismo día que el inicio,
+     * por ejemplo de "06/10/2025 06:00" a "09:00".
+     * @param searchBy tipo de búsqueda, "Departure range" o "Duration range".
+     * @param fromText inicio del rango, incluido.
+     * @param toText final del rango, incluido.
+     * @return el filtro, o {@code null} si el rango no es válido, después de mostrar el error.
+     */
+    private FlightFilter rangeFilter(String searchBy, String fromText, String toText) {
+        try {
+            if ("Duration range".equals(searchBy)) {
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("H:mm");
+                LocalTime from = LocalTime.parse(fromText, formatter);
+                LocalTime to = LocalTime.parse(toText, formatter);
+                if (from.isAfter(to)) {
+                    MessageUtils.showError("La duración inicial debe ser anterior a la final");
+                    return null;
+                }
+                return FlightFilter.durationBetween(from, to);
+            }
+            LocalDateTime from = LocalDateTime.parse(fromText, DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
+            LocalDateTime to = toText.contains("/")
+                    ? LocalDateTime.parse(toText, DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))
+                    : from.toLocalDate().atTime(LocalTime.parse(toText, DateTimeFormatter.ofPattern("H:mm")));
+            if (from.isAfter(to)) {
+                MessageUtils.showError("La fecha inicial debe ser anterior a la final");
+                return null;
+            }
+            return FlightFilter.departureBetween(from, to);
+        } catch (DateTimeParseException e) {
+            MessageUtils.showError("Duration range".equals(searchBy)
+                    ? "La duración debe tener el formato hh:mm"
+                    : "La fecha debe tener el formato dd/MM/yyyy HH:mm, el final también puede ser HH:mm");
+            return null;
+        }
+    }
+
+    /**
+     * Comprueba si una opción de búsqueda es por rango, con inicio y final.
+     * @param searchBy opción de búsqueda.
+     * @return {@code true} si es la búsqueda por rango de salida o de duración.
+     */
+    private static boolean isRangeSearch(String searchBy) {
+        return "Departure range".equals(searchBy) || "Duration range".equals(searchBy);
+    }
+
     /**
      * Maneja la selección de un vuelo en la tabla. Si hay un vuelo seleccionado
      * y el botón de actualización está habilitado, implementa la función de selección de los campos de entrada
-     * y se deshabilita el botón agregar.
+     * (el botón agregar permanece deshabilitado mientras se actualiza).
      * @param observable el valor observable del vuelo seleccionado.
      * @param oldValue el valor previo seleccionado (puede ser null).
      * @param newValue el nuevo valor seleccionado (puede ser null).
@@ -675,7 +1388,6 @@ public class FXMLMainViewController {
     private void handleTableSelection(ObservableValue<? extends Flight> observable, Flight oldValue, Flight newValue) {
         if (newValue != null && !idUpdateFlightButton.isDisable()) {
             selectFlightFromTable();
-            idAddButton.setDisable(true);
         }
     }
 
@@ -706,6 +1418,8 @@ public class FXMLMainViewController {
      */
     @FXML
     public void updateFlight() {
+        if (validateReadOnly() || validateLoading()) return;
+
         Flight selectedFlight = idVuelosTableView.getSelectionModel().getSelectedItem();
         if ( selectedFlight == null) {
             MessageUtils.showError("Ningún vuelo se ha seleccionado para actualizar");
@@ -735,16 +1449,19 @@ public class FXMLMainViewController {
                 resetToInitialState();
             }
         } else {
-            if (flightsObsList.contains(updateFlight)) {
+            if (repository.contains(updateFlight)) {
                 MessageUtils.showError("El vuelo ingresado ya existe en la lista de vuelos");
                 return;
             }
+            if (!confirmConflicts(repository.findConflicts(updateFlight, selectedFlight))) return;
             boolean confirmUpdate = MessageUtils.showConfirmation(String.format("¿Desea actualizar el vuelo?\n Vuelo anterior: %s\n Vuelo nuevo: %s", selectedFlight, updateFlight));
             if (confirmUpdate) {
                 int index = flightsObsList.indexOf(selectedFlight);
                 flightsObsList.set(index, updateFlight);
+                journal.recordUpdate(selectedFlight, updateFlight);
+                history.record(new FlightJournal.Entry(FlightJournal.Operation.UPDATE, selectedFlight, updateFlight));
                 try {
-                    FileUtils.saveFlightsToFile(flightsObsList);
+                    compactJournal();
                     resetToInitialState();
                 }catch (Exception e) {
                     //logger.log(Level.SEVERE, "No se pudo actualizar el vuelo: " + updateFlight, e);
@@ -754,6 +1471,49 @@ public class FXMLMainViewController {
         }
     }
 
+    /**
+     * Asociado a la acción de clic en el botón "Undo" y al atajo Ctrl+Z.
+     * Deshace el último alta, baja o actualización de un vuelo.
+     */
+    @FXML
+    public void undo() {
+        if (validateReadOnly() || validateLoading() || !history.canUndoProperty().get()) return;
+        showHistoryChange(history.undo(flightsObsList), "No se puede deshacer el cambio, el vuelo ya no está en la lista");
+    }
+
+    /**
+     * Asociado a la acción de clic en el botón "Redo" y al atajo Ctrl+Y.
+     * Vuelve a aplicar el último cambio deshecho.
+     */
+    @FXML
+    public void redo() {
+        if (validateReadOnly() || validateLoading() || !history.canRedoProperty().get()) return;
+        showHistoryChange(history.redo(flightsObsList), "No se puede rehacer el cambio, el vuelo ya no está en la lista");
+    }
+
+    /**
+     * Método auxiliar.
+     * Muestra el resultado de deshacer o rehacer un cambio. Vuelve a la vista inicial si se estaba editando un vuelo,
+     * que puede haber cambiado, o si la tabla muestra una copia de la lista, los próximos vuelos, que no refleja el cambio.
+     * @param applied cambio aplicado, o {@code null} si no se pudo aplicar.
+     * @param error mensaje que se muestra si no se pudo aplicar.
+     */
+    private void showHistoryChange(FlightJournal.Entry applied, String error) {
+        if (applied == null) {
+            MessageUtils.showWarning(error);
+            return;
+        }
+        if (!idUpdateFlightButton.isDisable()
+                || idVuelosTableView.getItems() != flightsObsList && !(idVuelosTableView.getItems() instanceof SortedList)) {
+            resetToInitialState();
+        }
+        Flight flight = applied.operation() == FlightJournal.Operation.UPDATE ? applied.newFlight() : applied.flight();
+        if (applied.operation() != FlightJournal.Operation.DELETE) {
+            idVuelosTableView.scrollTo(flight);
+        }
+        compactJournal();
+    }
+
     /**
      * Método auxiliar
      * Establece la vista inicial de la aplicación, definiendo valores predeterminados a botones, campos de entrada y choices.
@@ -762,31 +1522,39 @@ public class FXMLMainViewController {
         idVuelosTableView.setItems(flightsObsList);
         idFiltersChoiceBox.setValue("Show all flights");
         idOptionSearchChoiceBox.setValue("Flight number");
-        idAddButton.setDisable(false);
         idDeleteButton.setDisable(true);
         idUpdateFlightButton.setDisable(true);
 
         idSearchTextField.clear();
+        idSearchToTextField.clear();
         clearFields();
+        resetValidation();
 
         idVuelosTableView.getSelectionModel().selectedItemProperty().removeListener(this::handleTableSelection);
         idVuelosTableView.getSelectionModel().clearSelection();
     }
 
     /**
-     * Maneja el evento de cierre de la ventana. Guarda la lista de vuelos en un archivo
-     * antes de cerrar la aplicación.
+     * Maneja el evento de cierre de la ventana. Compacta el diario en el archivo de vuelos
+     * y espera a que el hilo de escritura {@link com.milacanete.flightsfx.persistence.FlightsWriter}
+     * termine las escrituras pendientes antes de cerrar la aplicación.
      * @param event el evento de cierre de ventana.
      */
     @FXML
     public void handleWindowClose(WindowEvent event) {
+        cancelLoad();
+        if (fileWatcher != null) {
+            fileWatcher.close();
+        }
         try {
-            FileUtils.saveFlightsToFile(flightsObsList);
+            if (!partialLoad) {
+                journal.compact(flightsObsList);
+            }
+            FlightJournal.shutdown();
         } catch (Exception e) {
             logger.log(Level.SEVERE, "Error al guardar la lista de vuelos al cerrar la aplicación", e);
             MessageUtils.showError("Error al guardar la lista de vuelos.");
         }
-        event.consume();
     }
 
     /**
@@ -797,28 +1565,46 @@ public class FXMLMainViewController {
 
     /**
      * Maneja el evento de clic en el botón "Chart" y permite ir a la vista del gráfico.
-     * Cambia la escena actual de la ventana a la definida en el archivo FXML de la vista principal.
+     * Cambia la escena actual de la ventana a la del gráfico mediante {@link ViewManager},
+     * que solo carga la vista la primera vez y comparte con ella el repositorio de vuelos.
      * Muestra un gráfico con los vuelos cargados si la lista de vuelos no está vacía.
      * @param event el evento de acción que activa la vista del gráfico.
      * @throws Exception sí ocurre algún error al cargar la vista del gráfico.
      */
     @FXML
     public void showChart(ActionEvent event) throws Exception {
+        if (validateReadOnly()) return;
         if (flightsObsList.isEmpty()) {
             MessageUtils.showMessage("No se han cargado vuelos para mostrar el gráfico");
             return;
         }
+        views.show(ViewManager.CHART_VIEW);
+    }
 
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/milacanete/flightsfx/FXMLChartView.fxml"));
-        Parent view1 = loader.load();
-        Scene view1Scene = new Scene(view1);
-        view1Scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/CSS/style.css")).toExternalForm());
-        Stage stage = (Stage) ((Node) event.getSource()).getScene().getWindow();
-        stage.hide();
-        stage.setScene(view1Scene);
-        stage.show();
+    /**
+     * Maneja el evento de clic en el botón "Analytics" y permite ir a la vista de análisis de duraciones.
+     * Muestra el análisis de los vuelos cargados si hay alguno, también en la vista paginada,
+     * en la que se analiza directamente el almacén de vuelos.
+     * @param event el evento de acción que activa la vista de análisis.
+     * @throws Exception si ocurre algún error al cargar la vista de análisis.
+     */
+    @FXML
+    public void showAnalytics(ActionEvent event) throws Exception {
+        if (!repository.hasFlights()) {
+            MessageUtils.showMessage("No se han cargado vuelos para analizar");
+            return;
+        }
+        views.show(ViewManager.ANALYTICS_VIEW);
+    }
 
+    /**
+     * Maneja el evento de clic en el botón "Diagnostics" y permite ir a la vista de diagnóstico,
+     * con las métricas de rendimiento de la aplicación.
+     * @param event el evento de acción que activa la vista de diagnóstico.
+     * @throws Exception si ocurre algún error al cargar la vista de diagnóstico.
+     */
+    @FXML
+    public void showDiagnostics(ActionEvent event) throws Exception {
+        views.show(ViewManager.DIAGNOSTICS_VIEW);
     }
 }
-
-
@@ -0,0 +1,182 @@
+package com.milacanete.flightsfx;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FileUtils;
+import com.milacanete.flightsfx.query.ScheduleConflicts;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Modo por lotes de la aplicación FlightsFX, sin interfaz gráfica.
+ * Importa uno o varios archivos de vuelos, elimina los vuelos repetidos, los ordena por salida
+ * y escribe el resultado en un archivo de texto o binario.
+ * <p> Solo utiliza los paquetes sin dependencias de JavaFX: el modelo, la persistencia ({@link FileUtils})
+ * y las consultas ({@link ScheduleConflicts}), por lo que se puede ejecutar en un servidor sin pantalla
+ * y sin JavaFX en el classpath. Tras compilar con {@code mvn compile}: </p>
+ * <pre>
+ * java -cp target/classes com.milacanete.flightsfx.FlightsBatch salida.txt entrada1.txt entrada2.bin ...
+ * </pre>
+ * <p> Los archivos con extensión ".bin" se leen y escriben con el formato binario, el resto como texto.
+ * Cada archivo de entrada se ordena por separado y después se mezclan todos (k-way merge): cada vuelo
+ * se escribe en cuanto sale de la mezcla, sin crear una lista con el resultado, y al mismo tiempo
+ * se eliminan los repetidos y se buscan los conflictos de horario ({@link ScheduleConflicts.Sweep}).
+ * Al terminar informa del número de vuelos y de la velocidad de cada fase, en vuelos por segundo,
+ * y de los conflictos de horario del resultado. </p>
+ */
+public class FlightsBatch {
+
+    /**
+     * Orden de los vuelos en el archivo de salida: salida, número de vuelo, destino y duración.
+     * Es coherente con {@link Flight#equals(Object)}: dos vuelos son iguales si y solo si el orden los considera iguales,
+     * de modo que tras ordenar los vuelos repetidos quedan seguidos.
+     */
+    static final Comparator<Flight> ORDER = Comparator.comparing(Flight::getDepartureTime)
+            .thenComparing(Flight::getFlightNumber)
+            .thenComparingInt(Flight::getDestinationId)
+            .thenComparing(Flight::getDuration);
+
+    /**
+     * Número máximo de conflictos de horario que se muestran, el resto solo se cuentan.
+     */
+    private static final int MAX_REPORTED_CONFLICTS = 20;
+
+    private FlightsBatch() {
+    }
+
+    /**
+     * Punto de entrada del modo por lotes.
+     * @param args archivo de salida seguido de los archivos de entrada.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Uso: FlightsBatch <salida> <entrada>...");
+            System.exit(2);
+        }
+        try {
+            run(Path.of(args[0]), Arrays.stream(args, 1, args.length).map(Path::of).toList());
+        } catch (IOException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Importa y ordena los archivos de entrada y escribe su mezcla, sin repetidos, en el archivo de salida.
+     * @param output archivo de salida, se reemplaza de forma atómica.
+     * @param inputs archivos de entrada.
+     * @throws IOException si ocurre un error al leer o escribir algún archivo.
+     */
+    static void run(Path output, List<Path> inputs) throws IOException {
+        long start = System.nanoTime();
+        List<Flight[]> sortedInputs = new ArrayList<>(inputs.size());
+        long imported = 0;
+        for (Path input : inputs) {
+            long fileStart = System.nanoTime();
+            Flight[] flights = FileUtils.importFlights(input).toArray(Flight[]::new);
+            Arrays.parallelSort(flights, ORDER);
+            report("Importado y ordenado " + input.getFileName(), flights.length, fileStart);
+            sortedInputs.add(flights);
+            imported += flights.length;
+        }
+
+        long writeStart = System.nanoTime();
+        ScheduleConflicts.Sweep sweep = new ScheduleConflicts.Sweep();
+        List<ScheduleConflicts.Conflict> reported = new ArrayList<>();
+        long[] conflicts = new long[1];
+        long[] written = new long[1];
+        Consumer<ScheduleConflicts.Conflict> conflictFound = conflict -> {
+            if (conflicts[0]++ < MAX_REPORTED_CONFLICTS) reported.add(conflict);
+        };
+        Iterable<Flight> merged = () -> merge(sortedInputs, flight -> {
+            written[0]++;
+            sweep.add(flight, conflictFound);
+        });
+        FileUtils.exportFlights(output, merged);
+        report("Escrito " + output.getFileName() + ", " + (imported - written[0]) + " repetidos eliminados",
+                written[0], writeStart);
+        report("Total", imported, start);
+
+        System.out.printf("Conflictos de horario: %,d%n", conflicts[0]);
+        for (ScheduleConflicts.Conflict conflict : reported) {
+            System.out.println("  " + conflict.first() + " / " + conflict.second());
+        }
+    }
+
+    /**
+     * Mezcla varios arrays ordenados con {@link #ORDER} en un único recorrido ordenado, sin repetidos.
+     * Los vuelos repetidos, del mismo archivo o de varios, salen seguidos de la mezcla y solo se conserva el primero.
+     * @param sortedInputs arrays de vuelos ordenados.
+     * @param produced recibe cada vuelo justo antes de devolverlo el recorrido.
+     * @return el recorrido de los vuelos mezclados.
+     */
+    static Iterator<Flight> merge(List<Flight[]> sortedInputs, Consumer<Flight> produced) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(sortedInputs.size(), 1),
+                (first, second) -> ORDER.compare(first.current(), second.current()));
+        for (Flight[] flights : sortedInputs) {
+            if (flights.length > 0) heads.add(new Cursor(flights));
+        }
+        return new Iterator<>() {
+            private Flight previous;
+
+            @Override
+            public boolean hasNext() {
+                while (!heads.isEmpty() && heads.peek().current().equals(previous)) {
+                    advance(); //repetido del último vuelo devuelto
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Flight next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                previous = advance();
+                produced.accept(previous);
+                return previous;
+            }
+
+            private Flight advance() {
+                Cursor cursor = heads.poll();
+                Flight flight = cursor.current();
+                if (cursor.next()) heads.add(cursor);
+                return flight;
+            }
+        };
+    }
+
+    /**
+     * Posición de la mezcla dentro de uno de los arrays ordenados.
+     */
+    private static final class Cursor {
+        private final Flight[] flights;
+        private int position;
+
+        Cursor(Flight[] flights) {
+            this.flights = flights;
+        }
+
+        Flight current() {
+            return flights[position];
+        }
+
+        boolean next() {
+            flights[position] = null; //el vuelo ya se escribió, se puede liberar
+            return ++position < flights.length;
+        }
+    }
+
+    /**
+     * Muestra el número de vuelos de una fase, su duración y la velocidad en vuelos por segundo.
+     */
+    private static void report(String phase, long rows, long startNanos) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        System.out.printf("%s: %,d vuelos en %.2f s (%,.0f vuelos/s)%n", phase, rows, seconds, rows / seconds);
+    }
+}
@@ -1,10 +1,10 @@
 package com.milacanete.flightsfx;
 
+import com.milacanete.flightsfx.diagnostics.Metrics;
+import com.milacanete.flightsfx.repository.FlightRepository;
+import com.milacanete.flightsfx.utils.FxStallDetector;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
-import java.util.Objects;
 
 /**
  * Clase principal de la aplicación FlightsFX para la gestión de vuelos.
@@ -23,14 +23,17 @@ public class FlightsFX extends Application {
     @Override
     public void start(Stage stage) throws Exception {
 
-        FXMLLoader fxmlLoader = new FXMLLoader(FlightsFX.class.getResource("FXMLMainView.fxml"));
-        Scene scene = new Scene(fxmlLoader.load());
-        scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/CSS/style.css")).toExternalForm());
+        //el repositorio de vuelos se crea una vez y lo comparten todas las vistas
+        FlightRepository repository = new FlightRepository();
+        ViewManager views = new ViewManager(stage, repository);
+        Metrics.gauge("flights.count", () -> repository.getFlights().size());
+        Metrics.gauge("jvm.heap.used.bytes", () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        Metrics.startPeriodicExport();
+        FxStallDetector.start();
         stage.setTitle("FlightsFX App");
         stage.setMinWidth(615);
         stage.setMinHeight(460);
-        stage.setScene(scene);
-        stage.show();
+        views.show(ViewManager.MAIN_VIEW);
     }
 
     /**
@@ -0,0 +1,109 @@
+package com.milacanete.flightsfx;
+
+import com.milacanete.flightsfx.diagnostics.FlightEvents;
+import com.milacanete.flightsfx.diagnostics.Metrics;
+import com.milacanete.flightsfx.repository.FlightRepository;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Gestiona las vistas de la ventana principal y el repositorio de vuelos compartido por sus controladores.
+ * <p> Cada vista se carga una sola vez, la primera vez que se muestra, y su escena se reutiliza después.
+ * Los controladores se crean con {@link FXMLLoader#setControllerFactory}, que les pasa este gestor,
+ * de modo que todas las vistas trabajan sobre el mismo {@link FlightRepository} y cambiar de vista
+ * no vuelve a leer el archivo de vuelos. </p>
+ */
+public class ViewManager {
+
+    /**
+     * Vista principal de gestión de vuelos.
+     */
+    public static final String MAIN_VIEW = "/com/milacanete/flightsfx/FXMLMainView.fxml";
+
+    /**
+     * Vista del gráfico de destinos.
+     */
+    public static final String CHART_VIEW = "/com/milacanete/flightsfx/FXMLChartView.fxml";
+
+    /**
+     * Vista del análisis de duraciones.
+     */
+    public static final String ANALYTICS_VIEW = "/com/milacanete/flightsfx/FXMLAnalyticsView.fxml";
+
+    /**
+     * Vista de diagnóstico con las métricas de rendimiento.
+     */
+    public static final String DIAGNOSTICS_VIEW = "/com/milacanete/flightsfx/FXMLDiagnosticsView.fxml";
+
+    private final Stage stage;
+    private final FlightRepository repository;
+    private final Map<String, Scene> scenes = new HashMap<>();
+
+    /**
+     * Crea el gestor de vistas de una ventana.
+     * @param stage ventana donde se muestran las vistas.
+     * @param repository repositorio de vuelos de la aplicación.
+     */
+    public ViewManager(Stage stage, FlightRepository repository) {
+        this.stage = stage;
+        this.repository = repository;
+    }
+
+    /**
+     * Obtiene el repositorio de vuelos de la aplicación.
+     * @return el repositorio de vuelos.
+     */
+    public FlightRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Muestra una vista en la ventana, cargándola si es la primera vez que se muestra.
+     * @param view ruta del archivo FXML de la vista, {@link #MAIN_VIEW}, {@link #CHART_VIEW}, {@link #ANALYTICS_VIEW} o {@link #DIAGNOSTICS_VIEW}.
+     * @throws IOException si ocurre un error al cargar el archivo FXML.
+     */
+    public void show(String view) throws IOException {
+        FlightEvents.ViewSwitch event = new FlightEvents.ViewSwitch();
+        event.begin();
+        long start = System.nanoTime();
+        Scene scene = scenes.get(view);
+        if (scene == null) {
+            scene = load(view);
+            scenes.put(view, scene);
+            event.loaded = true;
+        }
+        stage.hide();
+        stage.setScene(scene);
+        stage.show();
+        Metrics.timer("ui.viewSwitch").stop(start);
+        event.view = view.substring(view.lastIndexOf('/') + 1);
+        event.commit();
+    }
+
+    /**
+     * Carga una vista y crea su escena con la hoja de estilos de la aplicación.
+     */
+    private Scene load(String view) throws IOException {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(view));
+        loader.setControllerFactory(this::createController);
+        Scene scene = new Scene(loader.load());
+        scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/CSS/style.css")).toExternalForm());
+        return scene;
+    }
+
+    /**
+     * Crea el controlador de una vista pasándole este gestor.
+     */
+    private Object createController(Class<?> type) {
+        if (type == FXMLMainViewController.class) return new FXMLMainViewController(this);
+        if (type == FXMLChartViewController.class) return new FXMLChartViewController(this);
+        if (type == FXMLAnalyticsViewController.class) return new FXMLAnalyticsViewController(this);
+        if (type == FXMLDiagnosticsViewController.class) return new FXMLDiagnosticsViewController(this);
+        throw new IllegalArgumentException("Controlador desconocido: " + type.getName());
+    }
+}
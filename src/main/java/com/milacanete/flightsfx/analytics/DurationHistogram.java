@@ -0,0 +1,144 @@
+package com.milacanete.flightsfx.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Histograma exacto de duraciones de vuelo, con un contador por cada minuto de 0:00 a 23:59.
+ * <p> Como las duraciones están acotadas, los percentiles son exactos, sin necesidad de aproximaciones como t-digest.
+ * Dos histogramas se combinan sumando sus contadores ({@link #merge(DurationHistogram)}), lo que permite
+ * calcularlos por partes en paralelo. </p>
+ * <p> Mientras tiene pocas duraciones, el histograma las guarda sin agrupar en un array de {@code short}
+ * que crece según se necesita, y solo crea los {@value #BUCKETS} contadores cuando hay tantas duraciones
+ * como contadores, o al consultarlo. Así los histogramas por destino y por mes de cada bloque, muchos de ellos
+ * con pocos vuelos, ocupan poco. Los contadores son {@code int}, ya que una lista no puede tener más de
+ * {@link Integer#MAX_VALUE} vuelos. El histograma no es seguro para hilos. </p>
+ */
+public class DurationHistogram {
+
+    /**
+     * Número de contadores, uno por minuto del día.
+     */
+    public static final int BUCKETS = 24 * 60;
+
+    /**
+     * Número de duraciones sin agrupar a partir del cual se crean los contadores:
+     * el array de {@code short} ocupa entonces lo mismo que la mitad de los contadores.
+     */
+    private static final int SPARSE_LIMIT = BUCKETS;
+
+    private short[] values = new short[8];
+    private int[] counts;
+    private long count;
+    private long sum;
+
+    /**
+     * Agrega una duración al histograma.
+     * @param minutes duración en minutos (0 a 1439).
+     */
+    public void add(int minutes) {
+        if (minutes < 0 || minutes >= BUCKETS) throw new ArrayIndexOutOfBoundsException(minutes);
+        if (counts == null && count == SPARSE_LIMIT) dense();
+        if (counts != null) {
+            counts[minutes]++;
+        } else {
+            if (count == values.length) values = Arrays.copyOf(values, Math.min(values.length * 2, SPARSE_LIMIT));
+            values[(int) count] = (short) minutes;
+        }
+        count++;
+        sum += minutes;
+    }
+
+    /**
+     * Suma a este histograma los contadores de otro.
+     * @param other histograma a combinar, puede ser este mismo.
+     * @return este histograma.
+     */
+    public DurationHistogram merge(DurationHistogram other) {
+        if (other.counts == null) {
+            //se copian antes, ya que al combinar un histograma consigo mismo add() los modifica
+            short[] otherValues = other.values;
+            int otherCount = (int) other.count;
+            for (int i = 0; i < otherCount; i++) {
+                add(otherValues[i]);
+            }
+            return this;
+        }
+        int[] dense = dense();
+        for (int i = 0; i < BUCKETS; i++) {
+            dense[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        return this;
+    }
+
+    /**
+     * Obtiene los contadores, agrupando antes las duraciones si todavía no se había hecho.
+     * @return los contadores por minuto.
+     */
+    private int[] dense() {
+        if (counts == null) {
+            counts = new int[BUCKETS];
+            for (int i = 0; i < count; i++) {
+                counts[values[i]]++;
+            }
+            values = null;
+        }
+        return counts;
+    }
+
+    /**
+     * Obtiene el número de duraciones del histograma.
+     * @return el número de duraciones.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Obtiene el número de duraciones iguales a la indicada.
+     * @param minutes duración en minutos (0 a 1439).
+     * @return el número de duraciones.
+     */
+    public long getCount(int minutes) {
+        return dense()[minutes];
+    }
+
+    /**
+     * Obtiene la duración media.
+     * @return la duración media en minutos, o 0 si el histograma está vacío.
+     */
+    public double getMean() {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     * Obtiene un percentil de las duraciones, por el método del rango más cercano.
+     * @param percentile percentil, de 0 a 100.
+     * @return la duración del percentil en minutos, o 0 si el histograma está vacío.
+     */
+    public int getPercentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        int[] counts = dense();
+        long accumulated = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            accumulated += counts[i];
+            if (accumulated >= rank) return i;
+        }
+        return BUCKETS - 1;
+    }
+
+    /**
+     * Agrupa los contadores por horas.
+     * @return 24 contadores, el primero con las duraciones de 0:00 a 0:59 y así sucesivamente.
+     */
+    public long[] getHourCounts() {
+        int[] counts = dense();
+        long[] hours = new long[24];
+        for (int i = 0; i < BUCKETS; i++) {
+            hours[i / 60] += counts[i];
+        }
+        return hours;
+    }
+}
@@ -0,0 +1,140 @@
+package com.milacanete.flightsfx.analytics;
+
+import com.milacanete.flightsfx.model.DestinationDictionary;
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FlightCodec;
+import com.milacanete.flightsfx.persistence.FlightStore;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Análisis de las duraciones de los vuelos: percentiles, histograma y desglose por destino y por mes.
+ * <p> Los vuelos se dividen en bloques que se analizan en paralelo en el pool fork-join común.
+ * Cada bloque acumula sus duraciones en minutos en {@link DurationHistogram} (arrays de tipos primitivos)
+ * y los resultados parciales se combinan sumando los histogramas. Los histogramas por destino y por mes
+ * de cada bloque solo crean sus contadores si reciben suficientes vuelos, de modo que la memoria
+ * de los resultados parciales no crece con el número de destinos y meses multiplicado por el de bloques. </p>
+ */
+public class FlightAnalytics {
+
+    /**
+     * Número mínimo de vuelos por bloque, para que no compense dividir listas pequeñas.
+     */
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Resultado del análisis.
+     * @param overall histograma de todas las duraciones.
+     * @param byDestination histograma de cada destino, ordenados por destino.
+     * @param byMonth histograma de cada mes de salida, ordenados por mes.
+     */
+    public record Report(DurationHistogram overall, Map<String, DurationHistogram> byDestination,
+                         Map<YearMonth, DurationHistogram> byMonth) {}
+
+    /**
+     * Acceso por posición a los atributos analizados de cada vuelo.
+     */
+    private interface Rows {
+        int duration(int index);
+        String destination(int index);
+        YearMonth month(int index);
+    }
+
+    /**
+     * Resultado parcial de un bloque de vuelos.
+     */
+    private static final class Partial {
+        private final DurationHistogram overall = new DurationHistogram();
+        private final Map<String, DurationHistogram> byDestination = new HashMap<>();
+        private final Map<YearMonth, DurationHistogram> byMonth = new HashMap<>();
+
+        private void add(int duration, String destination, YearMonth month) {
+            overall.add(duration);
+            byDestination.computeIfAbsent(destination, _ -> new DurationHistogram()).add(duration);
+            byMonth.computeIfAbsent(month, _ -> new DurationHistogram()).add(duration);
+        }
+
+        private Partial merge(Partial other) {
+            overall.merge(other.overall);
+            other.byDestination.forEach((key, histogram) -> byDestination.merge(key, histogram, DurationHistogram::merge));
+            other.byMonth.forEach((key, histogram) -> byMonth.merge(key, histogram, DurationHistogram::merge));
+            return this;
+        }
+    }
+
+    /**
+     * Analiza una lista de vuelos. La lista no debe modificarse durante el análisis,
+     * si es la lista de la interfaz se debe pasar una copia.
+     * @param flights vuelos a analizar, con acceso aleatorio eficiente.
+     * @return el resultado del análisis.
+     */
+    public static Report analyze(List<Flight> flights) {
+        return analyze(flights.size(), new Rows() {
+            @Override
+            public int duration(int index) {
+                return FlightCodec.encodeDuration(flights.get(index).getDuration());
+            }
+
+            @Override
+            public String destination(int index) {
+                return DestinationDictionary.getName(flights.get(index).getDestinationId());
+            }
+
+            @Override
+            public YearMonth month(int index) {
+                LocalDateTime departure = flights.get(index).getDepartureTime();
+                return YearMonth.of(departure.getYear(), departure.getMonthValue());
+            }
+        });
+    }
+
+    /**
+     * Analiza los vuelos de un almacén, leyendo directamente los campos codificados de cada vuelo
+     * sin crear objetos {@link Flight}. Se usa con la vista paginada, en la que los vuelos no están en memoria.
+     * @param store almacén de vuelos, binario o por columnas.
+     * @return el resultado del análisis.
+     */
+    public static Report analyze(FlightStore store) {
+        return analyze(store.size(), new Rows() {
+            @Override
+            public int duration(int index) {
+                return store.getDurationMinutes(index);
+            }
+
+            @Override
+            public String destination(int index) {
+                return store.getDestination(index);
+            }
+
+            @Override
+            public YearMonth month(int index) {
+                return YearMonth.from(LocalDate.ofEpochDay(Math.floorDiv(store.getDepartureMinute(index), 24 * 60)));
+            }
+        });
+    }
+
+    private static Report analyze(int size, Rows rows) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (Runtime.getRuntime().availableProcessors() * 4) + 1);
+        int chunks = (size + chunkSize - 1) / chunkSize;
+
+        Partial result = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    Partial partial = new Partial();
+                    int end = (int) Math.min(size, (long) (chunk + 1) * chunkSize);
+                    for (int i = chunk * chunkSize; i < end; i++) {
+                        partial.add(rows.duration(i), rows.destination(i), rows.month(i));
+                    }
+                    return partial;
+                })
+                .reduce(Partial::merge)
+                .orElseGet(Partial::new);
+        return new Report(result.overall, new TreeMap<>(result.byDestination), new TreeMap<>(result.byMonth));
+    }
+}
@@ -0,0 +1,97 @@
+package com.milacanete.flightsfx.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Eventos de JDK Flight Recorder (JFR) de la aplicación.
+ * <p> Cada evento mide la duración de una operación con {@link Event#begin()} y {@link Event#commit()},
+ * y solo tiene coste cuando hay una grabación activa, por ejemplo, al ejecutar la aplicación con
+ * {@code -XX:StartFlightRecording=filename=flights.jfr}. La grabación se analiza con {@code jfr print --categories FlightsFX flights.jfr}
+ * o con JDK Mission Control. </p>
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    /**
+     * Carga de los vuelos desde el archivo.
+     */
+    @Name("com.milacanete.flightsfx.FlightLoad")
+    @Label("Flight Load")
+    @Category("FlightsFX")
+    public static class FlightLoad extends Event {
+        @Label("Rows")
+        public long rows;
+
+        @Label("Bytes Read")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * Guardado de los vuelos en el archivo.
+     */
+    @Name("com.milacanete.flightsfx.FlightSave")
+    @Label("Flight Save")
+    @Category("FlightsFX")
+    public static class FlightSave extends Event {
+        @Label("Rows")
+        public long rows;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * Búsqueda o filtro aplicado a la tabla de vuelos.
+     */
+    @Name("com.milacanete.flightsfx.FilterApplied")
+    @Label("Filter Applied")
+    @Category("FlightsFX")
+    public static class FilterApplied extends Event {
+        @Label("Filter")
+        public String filter;
+
+        @Label("Rows")
+        public long rows;
+    }
+
+    /**
+     * Cambio de la vista mostrada en la ventana.
+     */
+    @Name("com.milacanete.flightsfx.ViewSwitch")
+    @Label("View Switch")
+    @Category("FlightsFX")
+    public static class ViewSwitch extends Event {
+        @Label("View")
+        public String view;
+
+        @Label("Loaded")
+        @Description("Si la vista se cargó del archivo FXML, la primera vez que se muestra")
+        public boolean loaded;
+    }
+
+    /**
+     * Bloqueo del hilo de JavaFX detectado por {@link com.milacanete.flightsfx.utils.FxStallDetector}.
+     */
+    @Name("com.milacanete.flightsfx.FxStall")
+    @Label("FX Thread Stall")
+    @Category("FlightsFX")
+    public static class FxStall extends Event {
+        @Label("Blocked Time")
+        @Timespan(Timespan.MILLISECONDS)
+        public long blockedMillis;
+
+        @Label("FX Thread Stack")
+        @Description("Pila del hilo de JavaFX al superar el umbral")
+        public String fxThreadStack;
+    }
+}
@@ -0,0 +1,239 @@
+package com.milacanete.flightsfx.diagnostics;
+
+import com.milacanete.flightsfx.persistence.FileUtils;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registro de métricas de rendimiento de la aplicación: contadores, indicadores (gauges) y tiempos.
+ * <p> Registrar un valor no bloquea ni crea objetos: los contadores usan {@link LongAdder} y los tiempos
+ * un histograma de 64 intervalos de potencias de dos de microsegundos, por lo que las métricas pueden
+ * estar siempre activas. Los percentiles son aproximados, el límite superior del intervalo. </p>
+ * <p> Las métricas se muestran en la vista de diagnóstico y se pueden exportar a un archivo de texto
+ * con {@link #writeSnapshot(Path)}. Si se ejecuta la aplicación con {@code -Dflightsfx.metrics.file=ruta},
+ * el archivo se escribe periódicamente cada {@code -Dflightsfx.metrics.interval} segundos (60 por defecto). </p>
+ */
+public final class Metrics {
+
+    private static final Logger logger = Logger.getLogger(Metrics.class.getName());
+
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Contador que solo aumenta, por ejemplo, el número de vuelos leídos.
+     */
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        /**
+         * Aumenta el contador.
+         * @param amount cantidad a sumar.
+         */
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        /**
+         * Obtiene el valor del contador.
+         * @return el valor acumulado.
+         */
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    /**
+     * Tiempos de una operación: número de ejecuciones, media, máximo y percentiles aproximados.
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        // Intervalo i: duraciones de menos de 2^i microsegundos
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        /**
+         * Registra una ejecución de la operación que empezó en el instante indicado.
+         * @param startNanos valor de {@link System#nanoTime()} al empezar.
+         * @return la duración registrada, en nanosegundos.
+         */
+        public long stop(long startNanos) {
+            long nanos = Math.max(System.nanoTime() - startNanos, 0);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos / 1000));
+            return nanos;
+        }
+
+        /**
+         * Obtiene el número de ejecuciones registradas.
+         * @return el número de ejecuciones.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Obtiene la duración media, en milisegundos.
+         * @return la duración media, o 0 si no hay ejecuciones.
+         */
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+        }
+
+        /**
+         * Obtiene la duración máxima, en milisegundos.
+         * @return la duración máxima, o 0 si no hay ejecuciones.
+         */
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        /**
+         * Obtiene un percentil aproximado de la duración: el límite superior del intervalo que lo contiene.
+         * @param percentile percentil entre 0 y 100.
+         * @return la duración en milisegundos, o 0 si no hay ejecuciones.
+         */
+        public double getPercentileMillis(double percentile) {
+            long n = 0;
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                n += counts[i];
+            }
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min((1L << i) / 1e3, getMaxMillis());
+            }
+            return getMaxMillis();
+        }
+    }
+
+    /**
+     * Valor de una métrica en un instante.
+     * @param name nombre de la métrica.
+     * @param type tipo: counter, gauge o timer.
+     * @param value valor, en los tiempos el número de ejecuciones, la media, los percentiles y el máximo en milisegundos.
+     */
+    public record Sample(String name, String type, String value) {}
+
+    /**
+     * Obtiene un contador, creándolo si no existe.
+     * @param name nombre del contador.
+     * @return el contador.
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, _ -> new Counter());
+    }
+
+    /**
+     * Obtiene los tiempos de una operación, creándolos si no existen.
+     * @param name nombre de la operación.
+     * @return los tiempos de la operación.
+     */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, _ -> new Timer());
+    }
+
+    /**
+     * Registra un indicador, cuyo valor se calcula al consultar las métricas. Sustituye al anterior con el mismo nombre.
+     * @param name nombre del indicador.
+     * @param value función que obtiene el valor, se puede llamar desde cualquier hilo.
+     */
+    public static void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Obtiene el valor actual de todas las métricas, ordenadas por nombre.
+     * @return los valores de las métricas.
+     */
+    public static List<Sample> snapshot() {
+        Map<String, Sample> samples = new ConcurrentSkipListMap<>();
+        counters.forEach((name, counter) -> samples.put(name, new Sample(name, "counter", Long.toString(counter.get()))));
+        gauges.forEach((name, gauge) -> samples.put(name, new Sample(name, "gauge", Long.toString(gauge.getAsLong()))));
+        timers.forEach((name, timer) -> samples.put(name, new Sample(name, "timer", String.format(
+                "count=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f",
+                timer.getCount(), timer.getMeanMillis(), timer.getPercentileMillis(50),
+                timer.getPercentileMillis(90), timer.getPercentileMillis(99), timer.getMaxMillis()))));
+        return new ArrayList<>(samples.values());
+    }
+
+    /**
+     * Escribe el valor actual de las métricas en un archivo de texto, reemplazándolo de forma atómica.
+     * Cada línea contiene el instante, el nombre, el tipo y el valor de una métrica, separados por espacios.
+     * @param path ruta del archivo.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    public static void writeSnapshot(Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        String timestamp = Instant.now().toString();
+        try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            for (Sample sample : snapshot()) {
+                writer.write(timestamp + ' ' + sample.name() + ' ' + sample.type() + ' ' + sample.value());
+                writer.newLine();
+            }
+        }
+        FileUtils.replaceFile(tempPath, path);
+    }
+
+    /**
+     * Obtiene el archivo donde se exportan las métricas: el configurado con {@code -Dflightsfx.metrics.file},
+     * o "flights-metrics.txt" en el directorio principal del proyecto.
+     * @return la ruta del archivo de métricas.
+     */
+    public static Path getSnapshotFile() {
+        String file = System.getProperty("flightsfx.metrics.file");
+        return file != null ? Paths.get(file) : Paths.get(System.getProperty("user.dir"), "flights-metrics.txt");
+    }
+
+    /**
+     * Empieza a exportar las métricas periódicamente si se configuró {@code -Dflightsfx.metrics.file}.
+     * Se debe llamar una sola vez, al iniciar la aplicación.
+     */
+    public static void startPeriodicExport() {
+        if (System.getProperty("flightsfx.metrics.file") == null) return;
+        long interval = Long.getLong("flightsfx.metrics.interval", 60);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flights-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                writeSnapshot(getSnapshotFile());
+            } catch (Exception ex) {
+                logger.log(Level.WARNING, "Error al exportar las métricas", ex);
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+}
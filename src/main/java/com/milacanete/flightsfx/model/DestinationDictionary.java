@@ -0,0 +1,178 @@
+package com.milacanete.flightsfx.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de destinos de la aplicación.
+ * <p> Asigna a cada destino un identificador entero consecutivo (0, 1, 2...) sin distinguir mayúsculas de minúsculas,
+ * de modo que "Madrid" y "MADRID" tienen el mismo identificador. Las mayúsculas
+ * no dependen del idioma del sistema ({@link Locale#ROOT}), así "Istanbul" e "ISTANBUL" coinciden también en turco. Cada forma de escribir un destino se guarda
+ * una sola vez y la comparten todos los vuelos, en lugar de una cadena por vuelo. </p>
+ * <p> Los vuelos obtienen su identificador al crearse ({@link Flight#getDestinationId()}), por lo que
+ * comparar, agrupar o filtrar por destino se reduce a comparar enteros. Se puede usar desde varios hilos,
+ * por ejemplo durante la carga en paralelo de flights.txt. </p>
+ * <p> Para la búsqueda mientras se escribe, el diccionario tiene un índice de bigramas (pares de letras) de los destinos,
+ * véase {@link #search(String, int)}, que encuentra los destinos que empiezan por el texto, lo contienen
+ * o se parecen a él, aunque tenga errores de escritura. </p>
+ */
+public final class DestinationDictionary {
+
+    /**
+     * Destino registrado en el diccionario.
+     * @param id identificador del destino.
+     * @param name forma de escribir el destino, compartida por todos los vuelos que la usan.
+     */
+    record Entry(int id, String name) {}
+
+    // Entrada de cada forma de escribir un destino, es la consulta habitual y no crea objetos
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Identificador de cada destino en mayúsculas
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // Nombre de cada identificador, la primera forma de escribir el destino que se registró.
+    // Se leen muchas más veces de las que se agregan destinos, por eso la lectura no se bloquea: solo se agregan
+    // nombres desde register(), que está sincronizado, y cada nombre se publica al incrementar namesSize (volatile).
+    // Al crecer, el array se copia duplicando su tamaño, así registrar un destino no copia todos los anteriores
+    private static volatile String[] names = new String[64];
+    private static volatile int namesSize;
+
+    // Identificadores de los destinos que contienen cada bigrama, el primero marca el inicio del nombre: "$M", "MA"...
+    private static final Map<String, Set<Integer>> bigrams = new ConcurrentHashMap<>();
+
+    /**
+     * Similitud mínima, según el coeficiente de Dice de los bigramas, de un destino que ni empieza
+     * por el texto buscado ni lo contiene.
+     */
+    private static final double MIN_SIMILARITY = 0.4;
+
+    private DestinationDictionary() {
+    }
+
+    /**
+     * Obtiene la entrada de un destino, registrándolo si no existe.
+     * @param destination destino.
+     * @return la entrada del destino.
+     */
+    static Entry entryOf(String destination) {
+        Entry entry = entries.get(destination);
+        return entry != null ? entry : register(destination);
+    }
+
+    private static synchronized Entry register(String destination) {
+        Entry entry = entries.get(destination);
+        if (entry != null) return entry;
+        String key = destination.toUpperCase(Locale.ROOT);
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = namesSize;
+            if (id == names.length) names = Arrays.copyOf(names, id * 2);
+            names[id] = destination;
+            namesSize = id + 1;
+            ids.put(key, id);
+            for (String bigram : bigramsOf(key)) {
+                bigrams.computeIfAbsent(bigram, _ -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+        entry = new Entry(id, destination);
+        entries.put(destination, entry);
+        return entry;
+    }
+
+    /**
+     * Obtiene el identificador de un destino, registrándolo si no existe.
+     * @param destination destino, sin distinguir mayúsculas de minúsculas.
+     * @return el identificador del destino.
+     */
+    public static int idOf(String destination) {
+        return entryOf(destination).id();
+    }
+
+    /**
+     * Busca el identificador de un destino sin registrarlo.
+     * @param destination destino, sin distinguir mayúsculas de minúsculas.
+     * @return el identificador del destino, o -1 si no está registrado.
+     */
+    public static int find(String destination) {
+        Entry entry = entries.get(destination);
+        if (entry != null) return entry.id();
+        Integer id = ids.get(destination.toUpperCase(Locale.ROOT));
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Obtiene el nombre de un destino, la primera forma de escribirlo que se registró.
+     * @param id identificador del destino.
+     * @return el nombre del destino.
+     */
+    public static String getName(int id) {
+        if (id < 0 || id >= namesSize) throw new IndexOutOfBoundsException(id);
+        return names[id];
+    }
+
+    /**
+     * Busca los destinos que coinciden con un texto, sin distinguir mayúsculas de minúsculas, ordenados
+     * de mejor a peor coincidencia: el destino igual al texto, los que empiezan por él, los que lo contienen
+     * y los que se parecen, según los bigramas que comparten. Dentro de cada grupo, los más parecidos primero.
+     * <p> Solo recorre los destinos que comparten algún bigrama con el texto, obtenidos del índice. </p>
+     * @param text texto buscado, por ejemplo "MAD" o "Madird".
+     * @param limit número máximo de destinos.
+     * @return los identificadores de los destinos encontrados, como máximo {@code limit}.
+     */
+    public static int[] search(String text, int limit) {
+        String query = text.strip().toUpperCase(Locale.ROOT);
+        if (query.isEmpty()) return new int[0];
+        Set<String> queryBigrams = bigramsOf(query);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (String bigram : queryBigrams) {
+            for (int id : bigrams.getOrDefault(bigram, Set.of())) {
+                shared.merge(id, 1, Integer::sum);
+            }
+        }
+
+        record Match(int id, int rank, double similarity, String name) {}
+        List<Match> matches = new ArrayList<>();
+        shared.forEach((id, count) -> {
+            String name = getName(id).toUpperCase(Locale.ROOT);
+            int rank = name.equals(query) ? 3 : name.startsWith(query) ? 2 : name.contains(query) ? 1 : 0;
+            double similarity = 2.0 * count / (queryBigrams.size() + bigramsOf(name).size());
+            if (rank > 0 || similarity >= MIN_SIMILARITY) matches.add(new Match(id, rank, similarity, name));
+        });
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Match::rank).reversed()
+                        .thenComparing(Comparator.comparingDouble(Match::similarity).reversed())
+                        .thenComparing(Match::name))
+                .limit(limit)
+                .mapToInt(Match::id)
+                .toArray();
+    }
+
+    /**
+     * Obtiene los bigramas distintos de un texto en mayúsculas, precedido de "$" para marcar el inicio.
+     */
+    private static Set<String> bigramsOf(String text) {
+        String marked = "$" + text;
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 2 <= marked.length(); i++) {
+            result.add(marked.substring(i, i + 2));
+        }
+        return result;
+    }
+
+    /**
+     * Obtiene el número de destinos registrados. Los identificadores van de 0 a este número menos uno.
+     * @return el número de destinos.
+     */
+    public static int size() {
+        return namesSize;
+    }
+}
@@ -7,20 +7,27 @@ import java.util.Objects;
 
 /**
  * Representa un vuelo con información sobre el número de vuelo, destino, hora de salida y duración.
+ * <p> Los vuelos son inmutables: el identificador del destino en {@link DestinationDictionary} y el código hash
+ * se calculan una sola vez al crear el vuelo, de modo que {@link #equals(Object)} y {@link #hashCode()}
+ * no crean objetos, comparan el destino como un entero y se pueden usar en índices hash. </p>
  */
 public class Flight {
 
     private final String flightNumber;
-    private String destination;
-    private LocalDateTime departureTime;
-    private LocalTime duration;
+    private final String destination;
+    private final LocalDateTime departureTime;
+    private final LocalTime duration;
+
+    // Identificador del destino, igual para todas las formas de escribirlo, -1 si no tiene destino
+    private final int destinationId;
+    private final int hash;
 
     /**
      * Constructor que inicializa el vuelo solo con su número.
      * @param flightNumber número del vuelo.
      */
     public Flight(String flightNumber) {
-        this.flightNumber = flightNumber;
+        this(flightNumber, null, null, null);
     }
 
     /**
@@ -31,10 +38,13 @@ public class Flight {
      * @param duration duración del vuelo.
      */
     public Flight(String flightNumber, String destination, LocalDateTime departureTime, LocalTime duration) {
+        DestinationDictionary.Entry entry = destination != null ? DestinationDictionary.entryOf(destination) : null;
         this.flightNumber = flightNumber;
-        this.destination = destination;
+        this.destination = entry != null ? entry.name() : null; //cadena compartida con los vuelos al mismo destino
         this.departureTime = departureTime;
         this.duration = duration;
+        this.destinationId = entry != null ? entry.id() : -1;
+        this.hash = Objects.hash(flightNumber, destinationId, departureTime, duration);
     }
 
     /**
@@ -53,6 +63,15 @@ public class Flight {
         return destination;
     }
 
+    /**
+     * Obtiene el identificador del destino en {@link DestinationDictionary}, usado para comparar destinos
+     * sin distinguir mayúsculas de minúsculas.
+     * @return identificador del destino, o -1 si el vuelo no tiene destino.
+     */
+    public int getDestinationId() {
+        return destinationId;
+    }
+
     /**
      * Obtiene la hora y fecha de salida del vuelo.
      * @return hora y fecha de salida del vuelo.
@@ -82,12 +101,23 @@ public class Flight {
 
         Flight flight = (Flight) o;
 
-        return Objects.equals(this.flightNumber, flight.flightNumber) &&
-                Objects.equals(this.destination.toUpperCase(), flight.destination.toUpperCase()) &&
+        return this.hash == flight.hash && //descarta rápidamente la mayoría de vuelos distintos
+                Objects.equals(this.flightNumber, flight.flightNumber) &&
+                this.destinationId == flight.destinationId &&
                 Objects.equals(this.departureTime, flight.departureTime) &&
                 Objects.equals(this.duration, flight.duration);
     }
 
+    /**
+     * Calcula el código hash del vuelo, coherente con {@link #equals(Object)}:
+     * el destino se tiene en cuenta por su identificador. El valor se calcula al crear el vuelo.
+     * @return el código hash del vuelo.
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     /**
      * Representa el vuelo como una cadena en el siguiente formato:
      * "número de vuelo; destino; fecha y hora de salida; duración".
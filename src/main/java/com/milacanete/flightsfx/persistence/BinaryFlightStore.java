@@ -0,0 +1,232 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.model.Flight;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacén de vuelos en formato binario de registros de tamaño fijo.
+ * <p> El archivo se abre proyectado en memoria ({@link FileChannel#map}), por lo que abrir un almacén
+ * no lee ni analiza los registros: cada vuelo se decodifica solo cuando se accede a él con {@link FlightStore#get(int)}. </p>
+ *
+ * <p> Estructura del archivo: </p>
+ * <pre>
+ * cabecera (24 bytes): "FLTB" | versión (int) | número de vuelos (long) | posición del diccionario (long)
+ * registros (18 bytes cada uno):
+ *     número de vuelo empaquetado (long) | salida en minutos (int) | id de destino (int) | duración en minutos (short)
+ * diccionario: número de entradas (int) | por cada entrada: longitud (int) y bytes UTF-8
+ * </pre>
+ * <p> El diccionario contiene los destinos y los números de vuelo que no se pueden empaquetar,
+ * véase {@link FlightCodec}. </p>
+ */
+public class BinaryFlightStore implements FlightStore {
+
+    private static final int MAGIC = 0x464C5442; // "FLTB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * Tamaño en bytes de cada registro.
+     */
+    public static final int RECORD_SIZE = 18;
+
+    // Cada segmento proyectado contiene como máximo este número de registros (menos de 1 GB)
+    private static final int RECORDS_PER_SEGMENT = (1 << 30) / RECORD_SIZE;
+
+    private final ByteBuffer[] segments;
+    private final int size;
+    private final String[] dictionary;
+
+    private BinaryFlightStore(ByteBuffer[] segments, int size, String[] dictionary) {
+        this.segments = segments;
+        this.size = size;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Abre un almacén binario existente. Solo se lee la cabecera y el diccionario,
+     * los registros se proyectan en memoria sin leerlos.
+     * @param path ruta del archivo.
+     * @return el almacén abierto.
+     * @throws IOException si ocurre un error al leer el archivo o su formato no es válido.
+     */
+    public static BinaryFlightStore open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Formato de archivo binario no válido: " + path.getFileName());
+            }
+            long count = header.getLong();
+            long dictionaryOffset = header.getLong();
+            if (count > Integer.MAX_VALUE || dictionaryOffset != HEADER_SIZE + count * RECORD_SIZE) {
+                throw new IOException("Cabecera de archivo binario no válida: " + path.getFileName());
+            }
+
+            // diccionario, se lee completo ya que es pequeño
+            ByteBuffer dictionaryBuffer = ByteBuffer.allocate(Math.toIntExact(channel.size() - dictionaryOffset));
+            channel.read(dictionaryBuffer, dictionaryOffset);
+            dictionaryBuffer.flip();
+            String[] dictionary = new String[dictionaryBuffer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                byte[] bytes = new byte[dictionaryBuffer.getInt()];
+                dictionaryBuffer.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            // registros, proyectados en segmentos
+            int size = (int) count;
+            ByteBuffer[] segments = new ByteBuffer[(size + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT];
+            for (int i = 0; i < segments.length; i++) {
+                long first = (long) i * RECORDS_PER_SEGMENT;
+                long records = Math.min(RECORDS_PER_SEGMENT, size - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+            }
+            return new BinaryFlightStore(segments, size, dictionary);
+        }
+    }
+
+    /**
+     * Escribe una lista de vuelos en formato binario. El archivo se escribe primero en un archivo temporal
+     * que después reemplaza al original de forma atómica.
+     * @param path ruta del archivo.
+     * @param flights vuelos a escribir.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     * @throws ArithmeticException si alguna fecha de salida está fuera del rango admitido por {@link FlightCodec}.
+     */
+    public static void write(Path path, List<Flight> flights) throws IOException {
+        write(path, flights, null);
+    }
+
+    /**
+     * Escribe vuelos en formato binario, igual que {@link #write(Path, List)}. Los vuelos se recorren una sola vez,
+     * en orden, por lo que se pueden generar mientras se escriben.
+     * @param path ruta del archivo.
+     * @param flights vuelos a escribir.
+     * @param beforeReplace acción que se ejecuta con el archivo temporal ya escrito y sincronizado,
+     *                      justo antes de reemplazar el original, puede ser {@code null}.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    static void write(Path path, Iterable<Flight> flights, Runnable beforeReplace) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        long count = 0;
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+            channel.position(HEADER_SIZE);
+            for (Flight flight : flights) {
+                long number = FlightCodec.packFlightNumber(flight.getFlightNumber());
+                if (number < 0) {
+                    number = -1L - idOf(flight.getFlightNumber(), ids, dictionary);
+                }
+                buffer.putLong(number)
+                        .putInt(FlightCodec.encodeDeparture(flight.getDepartureTime()))
+                        .putInt(idOf(flight.getDestination(), ids, dictionary))
+                        .putShort(FlightCodec.encodeDuration(flight.getDuration()));
+                count++;
+                if (!buffer.hasRemaining()) {
+                    writeFully(channel, buffer);
+                }
+            }
+            writeFully(channel, buffer);
+
+            long dictionaryOffset = channel.position();
+            buffer.putInt(dictionary.size());
+            for (String entry : dictionary) {
+                byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < Integer.BYTES + bytes.length) {
+                    writeFully(channel, buffer);
+                    if (buffer.capacity() < Integer.BYTES + bytes.length) {
+                        buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+                    }
+                }
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            writeFully(channel, buffer);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(dictionaryOffset);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, HEADER_SIZE - buffer.remaining());
+            }
+            channel.force(true);
+        }
+        if (beforeReplace != null) {
+            beforeReplace.run();
+        }
+        FileUtils.replaceFile(tempPath, path);
+    }
+
+    private static int idOf(String value, Map<String, Integer> ids, List<String> dictionary) {
+        return ids.computeIfAbsent(value, key -> {
+            dictionary.add(key);
+            return dictionary.size() - 1;
+        });
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getFlightNumber(int index) {
+        long number = segment(index).getLong(offset(index));
+        return number >= 0 ? FlightCodec.unpackFlightNumber(number) : dictionary[(int) (-1L - number)];
+    }
+
+    @Override
+    public int getDepartureMinute(int index) {
+        return segment(index).getInt(offset(index) + 8);
+    }
+
+    /**
+     * Obtiene el identificador del destino de la posición indicada en el diccionario del archivo.
+     * @param index posición del vuelo.
+     * @return el identificador del destino.
+     */
+    public int getDestinationId(int index) {
+        return segment(index).getInt(offset(index) + 12);
+    }
+
+    @Override
+    public String getDestination(int index) {
+        return dictionary[getDestinationId(index)];
+    }
+
+    @Override
+    public int getDurationMinutes(int index) {
+        return segment(index).getShort(offset(index) + 16);
+    }
+
+    private ByteBuffer segment(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return segments[index / RECORDS_PER_SEGMENT];
+    }
+
+    private static int offset(int index) {
+        return (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,192 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.model.Flight;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacén de vuelos en memoria por columnas de tipos primitivos, con la misma codificación que {@link BinaryFlightStore}:
+ * <pre>
+ * número de vuelo empaquetado (long) | salida en minutos (int) | id de destino (int) | duración en minutos (short)
+ * </pre>
+ * <p> Cada vuelo ocupa 18 bytes en el heap, frente a los cientos de bytes de un {@link Flight} con sus cadenas y fechas.
+ * Los destinos y los números de vuelo que no se pueden empaquetar se guardan una sola vez en un diccionario. </p>
+ * <p> Los vuelos se crean solo al acceder a ellos con {@link #get(int)}. El almacén no es seguro para hilos. </p>
+ * <p> Se usa al convertir flights.txt a binario y en la vista paginada con el formato de texto, véase
+ * {@link FileUtils#openPagedStore()}. La tabla editable no lo usa: {@link com.milacanete.flightsfx.repository.FlightRepository}
+ * mantiene una lista de objetos {@link Flight}, ya que la edición, el deshacer y los índices trabajan con los vuelos. </p>
+ */
+public class ColumnarFlightStore implements FlightStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] flightNumbers;
+    private int[] departures;
+    private int[] destinationIds;
+    private short[] durations;
+    private int size;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * Crea un almacén vacío.
+     */
+    public ColumnarFlightStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Crea un almacén vacío con capacidad para el número de vuelos indicado.
+     * @param capacity capacidad inicial.
+     */
+    public ColumnarFlightStore(int capacity) {
+        flightNumbers = new long[capacity];
+        departures = new int[capacity];
+        destinationIds = new int[capacity];
+        durations = new short[capacity];
+    }
+
+    /**
+     * Crea un almacén con los vuelos de una lista.
+     * @param flights vuelos a copiar.
+     * @return el almacén.
+     */
+    public static ColumnarFlightStore of(List<Flight> flights) {
+        ColumnarFlightStore store = new ColumnarFlightStore(Math.max(flights.size(), 1));
+        flights.forEach(store::add);
+        return store;
+    }
+
+    /**
+     * Agrega un vuelo al final del almacén.
+     * @param flight vuelo a agregar.
+     * @throws ArithmeticException si la fecha de salida está fuera del rango admitido por {@link FlightCodec}.
+     */
+    public void add(Flight flight) {
+        if (size == departures.length) {
+            grow();
+        }
+        store(size, flight);
+        size++;
+    }
+
+    /**
+     * Reemplaza el vuelo de la posición indicada.
+     * @param index posición del vuelo.
+     * @param flight vuelo nuevo.
+     * @throws ArithmeticException si la fecha de salida está fuera del rango admitido por {@link FlightCodec}.
+     */
+    public void set(int index, Flight flight) {
+        store(checkIndex(index), flight);
+    }
+
+    private void store(int index, Flight flight) {
+        //se codifica todo antes de escribir, así un vuelo fuera de rango no deja la fila a medias
+        int departure = FlightCodec.encodeDeparture(flight.getDepartureTime());
+        short duration = FlightCodec.encodeDuration(flight.getDuration());
+        long number = FlightCodec.packFlightNumber(flight.getFlightNumber());
+        flightNumbers[index] = number >= 0 ? number : -1L - idOf(flight.getFlightNumber());
+        departures[index] = departure;
+        destinationIds[index] = idOf(flight.getDestination());
+        durations[index] = duration;
+    }
+
+    /**
+     * Elimina los vuelos de las posiciones indicadas, desplazando los siguientes sin cambiar su orden.
+     * Las entradas del diccionario no se eliminan.
+     * @param indexes posiciones de los vuelos a eliminar.
+     */
+    public void removeAll(BitSet indexes) {
+        int to = indexes.nextSetBit(0);
+        if (to < 0 || to >= size) return;
+        for (int from = to + 1; from < size; from++) {
+            if (indexes.get(from)) continue;
+            flightNumbers[to] = flightNumbers[from];
+            departures[to] = departures[from];
+            destinationIds[to] = destinationIds[from];
+            durations[to] = durations[from];
+            to++;
+        }
+        size = to;
+    }
+
+    /**
+     * Agrega una lista de vuelos al final del almacén.
+     * @param flights vuelos a agregar.
+     */
+    public void addAll(List<Flight> flights) {
+        flights.forEach(this::add);
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, departures.length + (departures.length >> 1));
+        flightNumbers = Arrays.copyOf(flightNumbers, capacity);
+        departures = Arrays.copyOf(departures, capacity);
+        destinationIds = Arrays.copyOf(destinationIds, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+    }
+
+    /**
+     * Reduce los arrays al número de vuelos del almacén, para no ocupar memoria de más.
+     */
+    public void trimToSize() {
+        flightNumbers = Arrays.copyOf(flightNumbers, size);
+        departures = Arrays.copyOf(departures, size);
+        destinationIds = Arrays.copyOf(destinationIds, size);
+        durations = Arrays.copyOf(durations, size);
+    }
+
+    private int idOf(String value) {
+        return ids.computeIfAbsent(value, key -> {
+            dictionary.add(key);
+            return dictionary.size() - 1;
+        });
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getFlightNumber(int index) {
+        long number = flightNumbers[checkIndex(index)];
+        return number >= 0 ? FlightCodec.unpackFlightNumber(number) : dictionary.get((int) (-1L - number));
+    }
+
+    @Override
+    public int getDepartureMinute(int index) {
+        return departures[checkIndex(index)];
+    }
+
+    /**
+     * Obtiene el identificador del destino de la posición indicada en el diccionario del almacén.
+     * @param index posición del vuelo.
+     * @return el identificador del destino.
+     */
+    public int getDestinationId(int index) {
+        return destinationIds[checkIndex(index)];
+    }
+
+    @Override
+    public String getDestination(int index) {
+        return dictionary.get(getDestinationId(index));
+    }
+
+    @Override
+    public int getDurationMinutes(int index) {
+        return durations[checkIndex(index)];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,511 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.diagnostics.FlightEvents;
+import com.milacanete.flightsfx.diagnostics.Metrics;
+import com.milacanete.flightsfx.model.Flight;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Clase encargada de gestionar la persistencia de la información de vuelos,
+ * Esta clase proporciona métodos para leer y guardar vuelos desde y hacia el archivo "flights.txt",
+ * o el archivo binario "flights.bin" si se configura ese formato, véase {@link #getStoreFormat()}.
+ *  * <p> Utiliza la clase {@link Flight} para representar los vuelos,
+ *  contienen información como el número de vuelo, destino, fecha y hora de salida y duración.
+ */
+
+public class FileUtils {
+
+    // Crea un logger para la clase
+    private static final Logger logger = Logger.getLogger(FileUtils.class.getName());
+
+    // Número de vuelos por lote al convertir flights.txt a binario
+    private static final int CONVERT_BATCH_SIZE = 64 * 1024;
+
+    /**
+     * Recibe las escrituras de un archivo de texto de vuelos con el archivo temporal ya escrito,
+     * antes de reemplazar el original, véase {@link #setTextWriteListener(TextWriteListener)}.
+     */
+    @FunctionalInterface
+    public interface TextWriteListener {
+        /**
+         * Se llama en el hilo que escribe, antes de reemplazar el archivo.
+         * @param path archivo que se va a reemplazar.
+         * @param tempPath archivo temporal con el contenido nuevo.
+         * @param size tamaño del contenido nuevo.
+         */
+        void fileWritten(Path path, Path tempPath, long size);
+    }
+
+    private static volatile TextWriteListener textWriteListener;
+
+    /**
+     * Formato del archivo donde se guardan los vuelos.
+     */
+    public enum StoreFormat {
+        /**
+         * Archivo de texto flights.txt, una línea por vuelo.
+         */
+        TEXT,
+        /**
+         * Archivo binario flights.bin con registros de tamaño fijo, véase {@link BinaryFlightStore}.
+         */
+        BINARY
+    }
+
+    /**
+     * Obtiene la ruta absoluta del archivo flights.txt ubicado en el directorio principal del proyecto.
+     * @return la ruta del archivo flights.txt.
+     */
+    public static Path getFlightsFile() {
+        return Paths.get(System.getProperty("user.dir"),"flights.txt");
+    }
+
+    /**
+     * Obtiene la ruta absoluta del archivo binario flights.bin ubicado en el directorio principal del proyecto.
+     * @return la ruta del archivo flights.bin.
+     */
+    private static Path getFlightsBinaryFile() {
+        return Paths.get(System.getProperty("user.dir"),"flights.bin");
+    }
+
+    /**
+     * Registra quién recibe las escrituras de archivos de texto de la propia aplicación,
+     * por ejemplo el vigilante de flights.txt, para no confundirlas con cambios externos.
+     * @param listener receptor de las escrituras, o {@code null} para no avisar a nadie.
+     */
+    public static void setTextWriteListener(TextWriteListener listener) {
+        textWriteListener = listener;
+    }
+
+    /**
+     * Obtiene el formato con el que se leen y guardan los vuelos. Por defecto es texto,
+     * el formato binario se activa con la propiedad del sistema {@code -Dflightsfx.format=binary}.
+     * @return el formato configurado.
+     */
+    public static StoreFormat getStoreFormat() {
+        return "binary".equalsIgnoreCase(System.getProperty("flightsfx.format")) ? StoreFormat.BINARY : StoreFormat.TEXT;
+    }
+
+    /**
+     * Indica si la tabla muestra los vuelos paginados, en modo de solo lectura, en lugar de cargarlos en memoria
+     * como objetos {@link Flight}, véase {@link #openPagedStore()}. Se activa con la propiedad del sistema
+     * {@code -Dflightsfx.view=paged} y está pensado para archivos con decenas de millones de vuelos.
+     * @return {@code true} si está activa la vista paginada.
+     */
+    public static boolean isPagedView() {
+        return "paged".equalsIgnoreCase(System.getProperty("flightsfx.view"));
+    }
+
+    /**
+     * Obtiene el archivo correspondiente al formato configurado.
+     * @return la ruta de flights.txt o de flights.bin.
+     */
+    public static Path getStoreFile() {
+        return getStoreFormat() == StoreFormat.BINARY ? getFlightsBinaryFile() : getFlightsFile();
+    }
+
+    /**
+     * Lee el contenido del archivo flights.txt y convierte cada línea en un objeto {@link Flight}.
+     * El archivo se divide en bloques que se analizan en paralelo con {@link FlightParser}.
+     * Las líneas con formato incorrecto se omiten y se registra un único aviso con el total de líneas descartadas.
+     * @return una lista de objetos {@link Flight} cargados desde el archivo.
+     * Si el archivo no existe u ocurre un error, se devuelve una lista vacía.
+     */
+    private static List<Flight> loadFlights() {
+        FlightEvents.FlightLoad event = new FlightEvents.FlightLoad();
+        event.begin();
+        long start = System.nanoTime();
+        List<Flight> flights = getStoreFormat() == StoreFormat.BINARY ? loadFlightsBinary() : loadFlightsText();
+        recordLoad(event, start, flights.size(), getFlightsFileSize());
+        return flights;
+    }
+
+    /**
+     * Lee todos los vuelos del archivo de texto flights.txt, con el mismo contrato que {@link #loadFlights()}.
+     */
+    private static List<Flight> loadFlightsText() {
+        Path filePath = getFlightsFile();
+
+        if (!Files.exists(filePath)){
+            logger.log(Level.WARNING, "Fichero \"{0}\" no encontrado", filePath.getFileName());
+            return Collections.emptyList();
+        }
+
+        //try con recurso, se abre el archivo y se analiza por bloques
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            return FlightParser.parseAll(channel);
+        }catch (Exception ex) {
+            logger.log(Level.SEVERE, "Error al leer el archivo \"" + filePath.getFileName().toString() + "\"", ex);
+            return Collections.emptyList();
+        }
+
+    }
+
+    /**
+     * Lee todos los vuelos del archivo binario flights.bin.
+     * Si el archivo binario no existe, se crea a partir de flights.txt.
+     * @return una lista de objetos {@link Flight}, o una lista vacía si ocurre un error.
+     */
+    private static List<Flight> loadFlightsBinary() {
+        try {
+            BinaryFlightStore store = openBinaryStore();
+            List<Flight> flights = new ArrayList<>(store.size());
+            for (int i = 0; i < store.size(); i++) {
+                flights.add(store.get(i));
+            }
+            return flights;
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Error al leer el archivo \"" + getFlightsBinaryFile().getFileName() + "\"", ex);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Abre los vuelos guardados para la vista paginada, véase {@link #isPagedView()}, con los registros
+     * del diario ya aplicados, de modo que muestra lo mismo que la carga completa.
+     * <ul>
+     *     <li>En formato binario, si el diario está vacío se abre flights.bin sin leer sus registros; si no,
+     *     sus vuelos se copian a un {@link ColumnarFlightStore} y se les aplica el diario.</li>
+     *     <li>En formato de texto, flights.txt se lee por lotes a un {@link ColumnarFlightStore}, unos 18 bytes
+     *     por vuelo, y se le aplica el diario. No se usa flights.bin, que puede no corresponder a flights.txt.</li>
+     * </ul>
+     * @return el almacén con los vuelos.
+     * @throws IOException si ocurre un error al leer los archivos.
+     */
+    public static FlightStore openPagedStore() throws IOException {
+        List<FlightJournal.Entry> entries = FlightJournal.readEntries();
+        ColumnarFlightStore store;
+        if (getStoreFormat() == StoreFormat.BINARY) {
+            BinaryFlightStore binaryStore = openBinaryStore();
+            if (entries.isEmpty()) return binaryStore;
+            store = new ColumnarFlightStore(Math.max(binaryStore.size(), 1));
+            for (int i = 0; i < binaryStore.size(); i++) {
+                store.add(binaryStore.get(i));
+            }
+        } else {
+            store = new ColumnarFlightStore();
+            readFlightsText(CONVERT_BATCH_SIZE, store::addAll, _ -> {}, () -> false);
+        }
+        FlightJournal.apply(store, entries);
+        store.trimToSize();
+        return store;
+    }
+
+    /**
+     * Abre el archivo binario flights.bin sin leer sus registros, véase {@link BinaryFlightStore}.
+     * Si el archivo binario no existe y existe flights.txt, primero se convierte.
+     * @return el almacén binario abierto.
+     * @throws IOException si ocurre un error al leer o convertir el archivo.
+     */
+    public static BinaryFlightStore openBinaryStore() throws IOException {
+        if (!Files.exists(getFlightsBinaryFile()) && Files.exists(getFlightsFile())) {
+            convertToBinary();
+        }
+        return BinaryFlightStore.open(getFlightsBinaryFile());
+    }
+
+    /**
+     * Convierte el archivo de texto flights.txt al formato binario flights.bin.
+     * Durante la conversión los vuelos se mantienen en un {@link ColumnarFlightStore}, unos 18 bytes por vuelo.
+     * @throws IOException si ocurre un error al leer o escribir los archivos.
+     */
+    public static void convertToBinary() throws IOException {
+        //los vuelos se leen por lotes y se guardan por columnas, sin mantener la lista completa de objetos Flight
+        ColumnarFlightStore store = new ColumnarFlightStore();
+        readFlightsText(CONVERT_BATCH_SIZE, store::addAll, _ -> {}, () -> false);
+        BinaryFlightStore.write(getFlightsBinaryFile(), store.asList());
+    }
+
+    /**
+     * Convierte el archivo binario flights.bin al formato de texto flights.txt.
+     * @throws IOException si ocurre un error al leer o escribir los archivos.
+     */
+    public static void convertToText() throws IOException {
+        writeFlightsText(getFlightsFile(), BinaryFlightStore.open(getFlightsBinaryFile()).asList(), null);
+    }
+
+    /**
+     * Lee el archivo flights.txt de forma secuencial y entrega los vuelos por lotes,
+     * sin necesidad de mantener el archivo completo en memoria.
+     * Permite informar del progreso de la lectura y detenerla antes de llegar al final.
+     * @param batchSize número máximo de vuelos por lote.
+     * @param batchConsumer recibe cada lote de vuelos leídos, en el orden del archivo.
+     * @param progress recibe el número de bytes leídos hasta el momento.
+     * @param cancelled indica si la lectura debe detenerse.
+     * @return el número de vuelos leídos.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    public static long readFlights(int batchSize, Consumer<List<Flight>> batchConsumer,
+                                   LongConsumer progress, BooleanSupplier cancelled) throws IOException {
+        FlightEvents.FlightLoad event = new FlightEvents.FlightLoad();
+        event.begin();
+        long start = System.nanoTime();
+        long[] bytesRead = new long[1];
+        LongConsumer measuredProgress = bytes -> {
+            bytesRead[0] = bytes;
+            progress.accept(bytes);
+        };
+        long count = getStoreFormat() == StoreFormat.BINARY
+                ? readFlightsBinary(batchSize, batchConsumer, measuredProgress, cancelled)
+                : readFlightsText(batchSize, batchConsumer, measuredProgress, cancelled);
+        recordLoad(event, start, count, bytesRead[0]);
+        return count;
+    }
+
+    /**
+     * Registra en {@link Metrics} y como evento de JFR el tiempo, los vuelos y los bytes de una carga.
+     */
+    private static void recordLoad(FlightEvents.FlightLoad event, long start, long rows, long bytes) {
+        Metrics.timer("flights.load").stop(start);
+        Metrics.counter("flights.load.rows").add(rows);
+        Metrics.counter("flights.load.bytes").add(bytes);
+        event.rows = rows;
+        event.bytes = bytes;
+        event.commit();
+    }
+
+    /**
+     * Lee el archivo de texto flights.txt por lotes, con el mismo contrato que {@link #readFlights}.
+     */
+    private static long readFlightsText(int batchSize, Consumer<List<Flight>> batchConsumer,
+                                        LongConsumer progress, BooleanSupplier cancelled) throws IOException {
+        Path filePath = getFlightsFile();
+        if (!Files.exists(filePath)) {
+            logger.log(Level.WARNING, "Fichero \"{0}\" no encontrado", filePath.getFileName());
+            return 0;
+        }
+
+        long count = 0;
+        int discarded = 0;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            for (FlightParser.Chunk chunk : FlightParser.splitChunks(channel, 0, channel.size(), FlightParser.CHUNK_SIZE)) {
+                if (cancelled.getAsBoolean()) break;
+                FlightParser.ChunkResult result = FlightParser.parseChunk(channel, chunk);
+                discarded += result.discarded();
+                List<Flight> flights = result.flights();
+                for (int from = 0; from < flights.size() && !cancelled.getAsBoolean(); from += batchSize) {
+                    List<Flight> batch = new ArrayList<>(flights.subList(from, Math.min(from + batchSize, flights.size())));
+                    count += batch.size();
+                    batchConsumer.accept(batch);
+                }
+                progress.accept(chunk.end());
+            }
+        }
+        FlightParser.logDiscarded(discarded);
+        return count;
+    }
+
+    /**
+     * Lee el archivo binario flights.bin por lotes, con el mismo contrato que {@link #readFlights}.
+     * Los registros no se analizan: cada vuelo se decodifica directamente de su posición en el archivo.
+     */
+    private static long readFlightsBinary(int batchSize, Consumer<List<Flight>> batchConsumer,
+                                          LongConsumer progress, BooleanSupplier cancelled) throws IOException {
+        BinaryFlightStore store = openBinaryStore();
+        long count = 0;
+        for (int from = 0; from < store.size() && !cancelled.getAsBoolean(); from += batchSize) {
+            int to = Math.min(from + batchSize, store.size());
+            List<Flight> batch = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                batch.add(store.get(i));
+            }
+            count += batch.size();
+            batchConsumer.accept(batch);
+            progress.accept((long) to * BinaryFlightStore.RECORD_SIZE);
+        }
+        return count;
+    }
+
+    /**
+     * Obtiene el tamaño en bytes del archivo de vuelos en el formato configurado.
+     * @return el tamaño del archivo, o 0 si no existe o no se puede leer.
+     */
+    public static long getFlightsFileSize() {
+        try {
+            return Files.size(getStoreFile());
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Método público que permite acceder a la lista de vuelos almacenada en el archivo flights.txt.
+     * @return una lista de objetos {@link Flight}.
+     * Si ocurre un error o el archivo no existe, se devuelve una lista vacía.
+     */
+    public static List<Flight> getFlights() {
+        return loadFlights();
+    }
+
+    /**
+     * Guarda una lista de vuelos en el archivo flights.txt. Convierte los atributos de cada vuelo
+     * al formato adecuado antes de escribirlos:
+     * Fecha y hora de salida: formato "dd/MM/yyyy HH:mm".
+     * Duración: formato "H:mm".
+     * @param flights lista de vuelos a guardar en el archivo.
+     */
+    private static void saveFlights(List<Flight> flights) {
+        Path filePath = getStoreFile();
+
+        try {
+            writeFlights(flights, null);
+        }catch (Exception ex) {
+            logger.log(Level.SEVERE, "Error al guardar datos en  \"" + filePath.getFileName().toString() + "\"", ex);
+        }
+    }
+
+    /**
+     * Escribe una lista de vuelos en el archivo del formato configurado: flights.txt o flights.bin.
+     * Los vuelos se escriben primero en un archivo temporal, que se sincroniza con el disco
+     * y después reemplaza al original de forma atómica: si la aplicación se cierra a mitad de la escritura,
+     * el archivo original queda intacto.
+     * A diferencia de {@link #saveFlightsToFile(List)}, los errores se propagan a quien llama.
+     * @param flights lista de vuelos a guardar en el archivo.
+     * @param beforeReplace acción que se ejecuta con el archivo temporal ya escrito y sincronizado,
+     *                      justo antes de reemplazar el original, puede ser {@code null}.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    static void writeFlights(List<Flight> flights, Runnable beforeReplace) throws IOException {
+        FlightEvents.FlightSave event = new FlightEvents.FlightSave();
+        event.begin();
+        long start = System.nanoTime();
+        if (getStoreFormat() == StoreFormat.BINARY) {
+            BinaryFlightStore.write(getFlightsBinaryFile(), flights, beforeReplace);
+        } else {
+            writeFlightsText(getFlightsFile(), flights, beforeReplace);
+        }
+        long bytes = getFlightsFileSize();
+        Metrics.timer("flights.save").stop(start);
+        Metrics.counter("flights.save.rows").add(flights.size());
+        Metrics.counter("flights.save.bytes").add(bytes);
+        event.rows = flights.size();
+        event.bytes = bytes;
+        event.commit();
+    }
+
+    /**
+     * Escribe vuelos en un archivo de texto, una línea por vuelo,
+     * reemplazando el archivo de forma atómica. Los vuelos se recorren una sola vez, en orden.
+     * @param filePath ruta del archivo.
+     * @param flights vuelos a guardar en el archivo.
+     * @param beforeReplace acción que se ejecuta justo antes de reemplazar el archivo, puede ser {@code null}.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    private static void writeFlightsText(Path filePath, Iterable<Flight> flights, Runnable beforeReplace) throws IOException {
+        Path tempPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        long size;
+
+        //try con recurso, se abre el archivo temporal para escritura con un PrintWriter
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(
+                     Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 16))) {
+            flights.forEach(flight -> writer.println(FlightParser.format(flight)));
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Error al escribir en " + tempPath.getFileName());
+            }
+            channel.force(true);
+            size = channel.size();
+        }
+        TextWriteListener listener = textWriteListener;
+        if (listener != null) {
+            listener.fileWritten(filePath, tempPath, size);
+        }
+        if (beforeReplace != null) {
+            beforeReplace.run();
+        }
+        replaceFile(tempPath, filePath);
+    }
+
+    /**
+     * Lee todos los vuelos de un archivo cualquiera, sin usar la configuración de la aplicación.
+     * Los archivos con extensión ".bin" se leen como {@link BinaryFlightStore}, el resto como texto
+     * con el formato de flights.txt, analizado en paralelo con {@link FlightParser}.
+     * A diferencia de {@link #getFlights()}, los errores se propagan a quien llama.
+     * @param filePath ruta del archivo.
+     * @return los vuelos en el orden del archivo.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    public static List<Flight> importFlights(Path filePath) throws IOException {
+        if (isBinaryFile(filePath)) {
+            return new ArrayList<>(BinaryFlightStore.open(filePath).asList());
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            return FlightParser.parseAll(channel);
+        }
+    }
+
+    /**
+     * Escribe vuelos en un archivo cualquiera, reemplazándolo de forma atómica.
+     * Los archivos con extensión ".bin" se escriben como {@link BinaryFlightStore}, el resto como texto.
+     * Los vuelos se recorren una sola vez, en orden, por lo que se pueden generar mientras se escriben
+     * sin mantenerlos todos en memoria.
+     * @param filePath ruta del archivo.
+     * @param flights vuelos a guardar en el archivo.
+     * @throws IOException si ocurre un error al escribir el archivo.
+     */
+    public static void exportFlights(Path filePath, Iterable<Flight> flights) throws IOException {
+        if (isBinaryFile(filePath)) {
+            BinaryFlightStore.write(filePath, flights, null);
+        } else {
+            writeFlightsText(filePath, flights, null);
+        }
+    }
+
+    private static boolean isBinaryFile(Path filePath) {
+        return filePath.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".bin");
+    }
+
+    /**
+     * Reemplaza un archivo por otro de forma atómica, si el sistema de archivos lo permite.
+     * @param source archivo temporal con el contenido nuevo.
+     * @param target archivo a reemplazar.
+     * @throws IOException si ocurre un error al mover el archivo.
+     */
+    public static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Método público que permite guardar una lista de vuelos en el archivo flights.txt.
+     * @param flights lista de vuelos a guardar.
+     */
+    public static void saveFlightsToFile(List<Flight> flights) {
+        saveFlights(flights);
+    }
+
+    /**
+     * Solicita guardar una lista de vuelos en el archivo flights.txt en segundo plano, sin esperar a que termine.
+     * Si se solicitan varios guardados seguidos, solo se escribe el más reciente.
+     * Para esperar a que el archivo esté escrito se puede usar {@link FlightsWriter#flush()}.
+     * @param flights lista de vuelos a guardar, se guarda una copia tomada en el momento de la llamada.
+     */
+    public static void saveFlightsToFileAsync(List<Flight> flights) {
+        FlightsWriter.requestSave(new ArrayList<>(flights), null, null);
+    }
+}
@@ -0,0 +1,113 @@
+package com.milacanete.flightsfx.persistence;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+/**
+ * Codificación compacta de los atributos de un vuelo en tipos primitivos.
+ * <ul>
+ *     <li>Fecha de salida: minutos transcurridos desde 01/01/1970 00:00 ({@code int}).</li>
+ *     <li>Duración: minutos ({@code short}).</li>
+ *     <li>Número de vuelo: hasta 12 caracteres [0-9A-Z] empaquetados en base 37 ({@code long}).
+ *     Los números que no se pueden empaquetar se guardan en un diccionario y se representan
+ *     con un valor negativo.</li>
+ * </ul>
+ * Se utiliza en el formato binario de {@link BinaryFlightStore}.
+ */
+public class FlightCodec {
+
+    /**
+     * Número máximo de caracteres de un número de vuelo empaquetado.
+     */
+    private static final int MAX_PACKED_LENGTH = 12;
+
+    // Horas y minutos de 0:00 a 23:59, se reutilizan en lugar de crear un LocalTime por vuelo
+    private static final LocalTime[] DURATIONS = new LocalTime[24 * 60];
+
+    static {
+        for (int i = 0; i < DURATIONS.length; i++) {
+            DURATIONS[i] = LocalTime.of(i / 60, i % 60);
+        }
+    }
+
+    /**
+     * Convierte una fecha de salida en minutos desde 01/01/1970 00:00.
+     * @param departureTime fecha y hora de salida, con precisión de minutos.
+     * @return los minutos transcurridos.
+     * @throws ArithmeticException si la fecha no cabe en un {@code int} (aproximadamente, años -2113 a 6053).
+     */
+    public static int encodeDeparture(LocalDateTime departureTime) {
+        return Math.toIntExact(Math.floorDiv(departureTime.toEpochSecond(ZoneOffset.UTC), 60));
+    }
+
+    /**
+     * Convierte minutos desde 01/01/1970 00:00 en una fecha de salida.
+     * @param epochMinute minutos transcurridos.
+     * @return la fecha y hora de salida.
+     */
+    public static LocalDateTime decodeDeparture(int epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Convierte una duración en minutos.
+     * @param duration duración del vuelo.
+     * @return la duración en minutos (0 a 1439).
+     */
+    public static short encodeDuration(LocalTime duration) {
+        return (short) (duration.getHour() * 60 + duration.getMinute());
+    }
+
+    /**
+     * Convierte minutos en una duración.
+     * @param minutes duración en minutos (0 a 1439).
+     * @return la duración del vuelo.
+     */
+    public static LocalTime decodeDuration(int minutes) {
+        return DURATIONS[minutes];
+    }
+
+    /**
+     * Empaqueta un número de vuelo en un {@code long}.
+     * @param flightNumber número de vuelo.
+     * @return el número empaquetado (mayor o igual a 0), o -1 si contiene caracteres distintos de [0-9A-Z]
+     * o más de 12 caracteres.
+     */
+    public static long packFlightNumber(String flightNumber) {
+        if (flightNumber.length() > MAX_PACKED_LENGTH) return -1;
+        long packed = 0;
+        for (int i = 0; i < flightNumber.length(); i++) {
+            int code = code(flightNumber.charAt(i));
+            if (code < 0) return -1;
+            packed = packed * 37 + code;
+        }
+        return packed;
+    }
+
+    /**
+     * Desempaqueta un número de vuelo.
+     * @param packed número empaquetado con {@link #packFlightNumber(String)}.
+     * @return el número de vuelo.
+     */
+    public static String unpackFlightNumber(long packed) {
+        char[] chars = new char[MAX_PACKED_LENGTH];
+        int position = chars.length;
+        while (packed > 0) {
+            int code = (int) (packed % 37);
+            chars[--position] = code <= 10 ? (char) ('0' + code - 1) : (char) ('A' + code - 11);
+            packed /= 37;
+        }
+        return new String(chars, position, chars.length - position);
+    }
+
+    /**
+     * Código de un carácter en base 37, el 0 se reserva para que no haya ceros a la izquierda.
+     * @return el código (1 a 36) o -1 si el carácter no se puede empaquetar.
+     */
+    private static int code(char c) {
+        if (c >= '0' && c <= '9') return c - '0' + 1;
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 11;
+        return -1;
+    }
+}
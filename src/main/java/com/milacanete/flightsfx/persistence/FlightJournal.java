@@ -0,0 +1,482 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.diagnostics.Metrics;
+import com.milacanete.flightsfx.model.Flight;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Diario de cambios (journal) de la lista de vuelos.
+ * <p> En lugar de reescribir el archivo "flights.txt" completo en cada modificación, cada alta, baja
+ * o actualización se añade como un único registro al final del archivo "flights.journal",
+ * por lo que el coste de entrada/salida de una edición no depende del número de vuelos. </p>
+ * <p> Al iniciar la aplicación, los registros del diario se aplican sobre los vuelos leídos de "flights.txt".
+ * Cuando el diario acumula suficientes registros, se compacta: se escribe una nueva copia completa
+ * de "flights.txt" en segundo plano y se vacía el diario. </p>
+ * <p> Todas las escrituras se realizan en el hilo de {@link FlightsWriter}, en el mismo orden en que se solicitan.
+ * Cada registro tiene un número de secuencia: al compactar, los registros ya incluidos en la copia completa
+ * que todavía esperaban en la cola no se escriben, así nunca se aplican dos veces. </p>
+ * <p> Antes de reemplazar "flights.txt" al compactar, el diario se aparta renombrándolo a "flights.journal.compacting.N",
+ * y se elimina una vez reemplazado. Si la aplicación se cierra entre ambos pasos, al leer el diario
+ * se sabe si el reemplazo llegó a hacerse por la existencia del archivo temporal de la copia completa,
+ * así los registros no se pierden ni se aplican dos veces. Si un reemplazo falla, la siguiente compactación
+ * aparta el diario con el número siguiente en lugar de mezclarlo con el anterior: cada paso es un único
+ * renombrado atómico. </p>
+ *
+ * <p> Formato de los registros: </p>
+ * <pre>
+ * ADD;número;destino;dd/MM/yyyy HH:mm;H:mm
+ * DELETE;número;destino;dd/MM/yyyy HH:mm;H:mm
+ * UPDATE;vuelo anterior;vuelo nuevo
+ * </pre>
+ */
+public class FlightJournal {
+
+    /**
+     * Tipo de operación registrada en el diario.
+     */
+    public enum Operation { ADD, DELETE, UPDATE }
+
+    /**
+     * Registro del diario.
+     * @param operation operación realizada.
+     * @param flight vuelo agregado o eliminado, o el vuelo anterior en una actualización.
+     * @param newFlight vuelo nuevo en una actualización, {@code null} en el resto de operaciones.
+     */
+    public record Entry(Operation operation, Flight flight, Flight newFlight) {}
+
+    /**
+     * Número de registros a partir del cual se compacta el diario.
+     */
+    private static final int COMPACTION_THRESHOLD = 1_000;
+
+    /**
+     * Prefijo de los diarios apartados durante una compactación, seguido de su número.
+     */
+    private static final String COMPACTING_PREFIX = "flights.journal.compacting.";
+
+    private static final Logger logger = Logger.getLogger(FlightJournal.class.getName());
+
+    private static final Metrics.Counter recordsMetric = Metrics.counter("flights.journal.records");
+
+    // Número de secuencia del último registro solicitado, solo desde el hilo de JavaFX
+    private static long lastSequence;
+
+    // Solo se accede desde el hilo de escritura
+    private static BufferedWriter out;
+
+    // Número de secuencia del último registro incluido en "flights.txt", solo desde el hilo de escritura
+    private static long compactedSequence;
+
+    private int pendingRecords;
+
+    /**
+     * Obtiene la ruta del archivo flights.journal ubicado en el directorio principal del proyecto.
+     * @return la ruta del archivo del diario.
+     */
+    private static Path getJournalFile() {
+        return Paths.get(System.getProperty("user.dir"), "flights.journal");
+    }
+
+    /**
+     * Obtiene los diarios apartados por compactaciones que todavía no se han descartado.
+     * @return las rutas de los archivos flights.journal.compacting.N, por orden de N.
+     * @throws IOException si ocurre un error al listar el directorio.
+     */
+    private static List<Path> getCompactingFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> siblings = Files.list(getJournalFile().getParent())) {
+            siblings.filter(file -> compactingNumber(file) > 0).forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(FlightJournal::compactingNumber));
+        return files;
+    }
+
+    /**
+     * Obtiene el número N de un diario apartado "flights.journal.compacting.N".
+     * @param file archivo.
+     * @return el número, o 0 si el archivo no es un diario apartado.
+     */
+    private static long compactingNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(COMPACTING_PREFIX)) return 0;
+        try {
+            return Long.parseLong(name.substring(COMPACTING_PREFIX.length()));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Indica si la última compactación empezó sin llegar a reemplazar el archivo de vuelos,
+     * es decir, si su archivo temporal todavía existe.
+     * @return {@code true} si el archivo de vuelos no incluye los registros del diario apartado.
+     */
+    private static boolean isCompactionPending() {
+        Path storeFile = FileUtils.getStoreFile();
+        return Files.exists(storeFile.resolveSibling(storeFile.getFileName() + ".tmp"));
+    }
+
+    /**
+     * Registra el alta de un vuelo.
+     * @param flight vuelo agregado.
+     */
+    public void recordAdd(Flight flight) {
+        append(Operation.ADD + ";" + FlightParser.format(flight));
+    }
+
+    /**
+     * Registra la baja de un vuelo.
+     * @param flight vuelo eliminado.
+     */
+    public void recordDelete(Flight flight) {
+        append(Operation.DELETE + ";" + FlightParser.format(flight));
+    }
+
+    /**
+     * Registra la actualización de un vuelo.
+     * @param oldFlight vuelo anterior.
+     * @param newFlight vuelo nuevo.
+     */
+    public void recordUpdate(Flight oldFlight, Flight newFlight) {
+        append(Operation.UPDATE + ";" + FlightParser.format(oldFlight) + ";" + FlightParser.format(newFlight));
+    }
+
+    /**
+     * Registra un cambio ya aplicado a la lista, por ejemplo al deshacer o rehacer.
+     * @param entry cambio aplicado.
+     */
+    public void record(Entry entry) {
+        switch (entry.operation()) {
+            case ADD -> recordAdd(entry.flight());
+            case DELETE -> recordDelete(entry.flight());
+            case UPDATE -> recordUpdate(entry.flight(), entry.newFlight());
+        }
+    }
+
+    /**
+     * Obtiene el número de secuencia del último registro solicitado, solo desde el hilo de JavaFX.
+     * Permite saber si la lista cambió entre dos momentos: cada cambio de la lista se registra en el diario.
+     * @return el número de secuencia, 0 si no se ha solicitado ningún registro.
+     */
+    public static long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Añade un registro al final del diario desde el hilo de escritura.
+     * @param record línea a añadir.
+     */
+    private void append(String record) {
+        recordsMetric.add(1);
+        pendingRecords++;
+        long sequence = ++lastSequence;
+        FlightsWriter.execute(() -> {
+            if (sequence <= compactedSequence) return; //ya forma parte de la copia completa
+            try {
+                if (out == null) {
+                    out = Files.newBufferedWriter(getJournalFile(), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                out.write(record);
+                out.newLine();
+                out.flush();
+            } catch (IOException ex) {
+                logger.log(Level.SEVERE, "Error al escribir en el diario de vuelos: " + record, ex);
+            }
+        });
+    }
+
+    /**
+     * Compacta el diario si ha alcanzado el número de registros configurado.
+     * @param flights lista actual de vuelos.
+     */
+    public void compactIfNeeded(List<Flight> flights) {
+        if (pendingRecords >= COMPACTION_THRESHOLD) {
+            compact(flights);
+        }
+    }
+
+    /**
+     * Compacta el diario: escribe en segundo plano una copia completa de los vuelos en "flights.txt"
+     * y vacía el diario. La copia de la lista se toma en el momento de la llamada, por lo que los cambios
+     * posteriores se registran en el diario nuevo.
+     * Si se solicitan varias compactaciones seguidas, solo se escribe la más reciente.
+     * @param flights lista actual de vuelos.
+     */
+    public void compact(List<Flight> flights) {
+        List<Flight> snapshot = new ArrayList<>(flights);
+        long sequence = lastSequence;
+        pendingRecords = 0;
+        FlightsWriter.requestSave(snapshot, () -> {
+            //la copia completa ya está escrita en el archivo temporal: se aparta el diario
+            try {
+                setAsideJournal();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex); //no se reemplaza el archivo de vuelos
+            }
+        }, () -> {
+            //solo se descarta el diario si la copia completa se guardó
+            compactedSequence = sequence;
+            discardSetAside();
+        });
+    }
+
+    /**
+     * Aparta el diario renombrándolo a "flights.journal.compacting.N", solo desde el hilo de escritura.
+     * Si quedan diarios apartados porque una compactación anterior no llegó a reemplazar el archivo de vuelos,
+     * se usa el número siguiente al último, de modo que se leen en el orden en que se escribieron.
+     * @throws IOException si ocurre un error al renombrar el diario.
+     */
+    static void setAsideJournal() throws IOException {
+        closeWriter();
+        Path journalFile = getJournalFile();
+        if (!Files.exists(journalFile)) return;
+        List<Path> compactingFiles = getCompactingFiles();
+        long number = compactingFiles.isEmpty() ? 1 : compactingNumber(compactingFiles.get(compactingFiles.size() - 1)) + 1;
+        FileUtils.replaceFile(journalFile, journalFile.resolveSibling(COMPACTING_PREFIX + number));
+    }
+
+    /**
+     * Elimina los diarios apartados, una vez que el archivo de vuelos ya incluye sus registros.
+     */
+    static void discardSetAside() {
+        try {
+            for (Path file : getCompactingFiles()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Error al vaciar el diario de vuelos", ex);
+        }
+    }
+
+    /**
+     * Lee los registros del diario. Las líneas incompletas o con formato incorrecto,
+     * por ejemplo, la última línea tras un cierre inesperado, se ignoran.
+     * Si hay diarios apartados por una compactación que no llegó a reemplazar el archivo de vuelos,
+     * sus registros se leen primero; si el reemplazo sí se hizo, los diarios apartados se descartan.
+     * @return los registros en el orden en que se escribieron.
+     * @throws IOException si ocurre un error al leer el diario.
+     */
+    public static List<Entry> readEntries() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        List<Path> compactingFiles = getCompactingFiles();
+        if (!compactingFiles.isEmpty()) {
+            if (isCompactionPending()) {
+                for (Path file : compactingFiles) {
+                    readEntries(file, entries);
+                }
+            } else {
+                discardSetAside();
+            }
+        }
+        readEntries(getJournalFile(), entries);
+        return entries;
+    }
+
+    /**
+     * Lee los registros de un archivo del diario y los añade a una lista.
+     * @param journalFile archivo del diario, puede no existir.
+     * @param entries lista a la que se añaden los registros.
+     * @throws IOException si ocurre un error al leer el diario.
+     */
+    private static void readEntries(Path journalFile, List<Entry> entries) throws IOException {
+        if (!Files.exists(journalFile)) return;
+
+        try (Stream<String> lines = Files.lines(journalFile, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                Entry entry = parseEntry(line);
+                if (entry != null) {
+                    entries.add(entry);
+                } else if (!line.isEmpty()) {
+                    logger.log(Level.WARNING, "Registro del diario ignorado: {0}", line);
+                }
+            });
+        }
+    }
+
+    /**
+     * Convierte una línea del diario en un registro.
+     * @param line línea del diario.
+     * @return el registro o {@code null} si la línea no es válida.
+     */
+    private static Entry parseEntry(String line) {
+        int separator = line.indexOf(';');
+        if (separator < 0) return null;
+        String record = line.substring(separator + 1);
+        try {
+            Operation operation = Operation.valueOf(line.substring(0, separator));
+            if (operation == Operation.UPDATE) {
+                // el vuelo anterior ocupa los cuatro primeros campos
+                int split = -1;
+                for (int i = 0; i < 4; i++) {
+                    split = record.indexOf(';', split + 1);
+                    if (split < 0) return null;
+                }
+                Flight oldFlight = FlightParser.parseLine(record.substring(0, split));
+                Flight newFlight = FlightParser.parseLine(record.substring(split + 1));
+                return oldFlight == null || newFlight == null ? null : new Entry(operation, oldFlight, newFlight);
+            }
+            Flight flight = FlightParser.parseLine(record);
+            return flight == null ? null : new Entry(operation, flight, null);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Aplica los registros del diario sobre una lista de vuelos, en orden: las altas se agregan al final,
+     * y las bajas y actualizaciones afectan al primer vuelo igual de la lista, como {@link List#remove(Object)}
+     * e {@link List#indexOf(Object)}.
+     * <p> Para no recorrer la lista en cada registro, se recorre una sola vez y se anotan las posiciones
+     * de los vuelos mencionados por el diario. Las bajas se marcan y se eliminan todas juntas al final.
+     * Cada vuelo reemplazado o desplazado es un cambio de la lista, por lo que no se debe usar con la lista
+     * observable de la interfaz: se aplica sobre una lista normal y el resultado se publica de una vez. </p>
+     * @param flights lista de vuelos leída de "flights.txt", con acceso aleatorio eficiente.
+     * @param entries registros del diario.
+     */
+    public static void apply(List<Flight> flights, List<Entry> entries) {
+        if (entries.isEmpty()) return;
+        //posiciones, en orden ascendente, de los vuelos mencionados por el diario
+        Map<Flight, List<Integer>> byFlight = new HashMap<>();
+        for (Entry entry : entries) {
+            byFlight.putIfAbsent(entry.flight(), new ArrayList<>());
+            if (entry.newFlight() != null) byFlight.putIfAbsent(entry.newFlight(), new ArrayList<>());
+        }
+        for (int i = 0; i < flights.size(); i++) {
+            List<Integer> positions = byFlight.get(flights.get(i));
+            if (positions != null) positions.add(i);
+        }
+
+        BitSet deleted = new BitSet();
+        for (Entry entry : entries) {
+            List<Integer> positions = byFlight.get(entry.flight());
+            switch (entry.operation()) {
+                case ADD -> {
+                    flights.add(entry.flight());
+                    positions.add(flights.size() - 1);
+                }
+                case DELETE -> {
+                    if (!positions.isEmpty()) deleted.set(positions.remove(0));
+                }
+                case UPDATE -> {
+                    if (!positions.isEmpty()) {
+                        int index = positions.remove(0);
+                        flights.set(index, entry.newFlight());
+                        List<Integer> newPositions = byFlight.get(entry.newFlight());
+                        newPositions.add(-Collections.binarySearch(newPositions, index) - 1, index);
+                    }
+                }
+            }
+        }
+
+        //se eliminan las bajas desplazando los vuelos siguientes una sola vez
+        int to = deleted.nextSetBit(0);
+        if (to < 0) return;
+        for (int from = to + 1; from < flights.size(); from++) {
+            if (!deleted.get(from)) flights.set(to++, flights.get(from));
+        }
+        flights.subList(to, flights.size()).clear();
+    }
+
+    /**
+     * Aplica los registros del diario sobre un almacén por columnas, con el mismo resultado que
+     * {@link #apply(List, List)}: las bajas y actualizaciones afectan al primer vuelo igual del almacén.
+     * <p> Para no recorrer el almacén en cada registro, se recorre una sola vez la columna de salidas y se anotan
+     * las posiciones de los vuelos que salen en algún minuto mencionado por el diario. Las bajas se marcan
+     * y se eliminan todas juntas al final. </p>
+     * @param store almacén con los vuelos leídos del archivo de vuelos.
+     * @param entries registros del diario.
+     */
+    public static void apply(ColumnarFlightStore store, List<Entry> entries) {
+        if (entries.isEmpty()) return;
+        //posiciones, en orden ascendente, de los vuelos que salen en cada minuto mencionado por el diario
+        Map<Integer, List<Integer>> byMinute = new HashMap<>();
+        for (Entry entry : entries) {
+            byMinute.put(FlightCodec.encodeDeparture(entry.flight().getDepartureTime()), new ArrayList<>());
+            if (entry.newFlight() != null) {
+                byMinute.put(FlightCodec.encodeDeparture(entry.newFlight().getDepartureTime()), new ArrayList<>());
+            }
+        }
+        for (int i = 0; i < store.size(); i++) {
+            List<Integer> positions = byMinute.get(store.getDepartureMinute(i));
+            if (positions != null) positions.add(i);
+        }
+
+        BitSet deleted = new BitSet();
+        for (Entry entry : entries) {
+            switch (entry.operation()) {
+                case ADD -> {
+                    store.add(entry.flight());
+                    positionsOf(byMinute, entry.flight()).add(store.size() - 1);
+                }
+                case DELETE -> {
+                    int index = removeFirst(store, byMinute, entry.flight());
+                    if (index >= 0) deleted.set(index);
+                }
+                case UPDATE -> {
+                    int index = removeFirst(store, byMinute, entry.flight());
+                    if (index >= 0) {
+                        store.set(index, entry.newFlight());
+                        List<Integer> positions = positionsOf(byMinute, entry.newFlight());
+                        positions.add(-Collections.binarySearch(positions, index) - 1, index);
+                    }
+                }
+            }
+        }
+        store.removeAll(deleted);
+    }
+
+    private static List<Integer> positionsOf(Map<Integer, List<Integer>> byMinute, Flight flight) {
+        return byMinute.get(FlightCodec.encodeDeparture(flight.getDepartureTime()));
+    }
+
+    /**
+     * Busca el primer vuelo del almacén igual al indicado y lo quita de las posiciones anotadas.
+     * @return su posición en el almacén, o -1 si no está.
+     */
+    private static int removeFirst(ColumnarFlightStore store, Map<Integer, List<Integer>> byMinute, Flight flight) {
+        List<Integer> positions = positionsOf(byMinute, flight);
+        for (int i = 0; i < positions.size(); i++) {
+            if (store.get(positions.get(i)).equals(flight)) return positions.remove(i);
+        }
+        return -1;
+    }
+
+    /**
+     * Espera a que terminen las escrituras pendientes y cierra el diario.
+     * Se debe llamar al cerrar la aplicación.
+     */
+    public static void shutdown() {
+        FlightsWriter.shutdown(FlightJournal::closeWriter);
+    }
+
+    /**
+     * Cierra el archivo del diario si está abierto, solo desde el hilo de escritura.
+     */
+    private static void closeWriter() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Error al cerrar el diario de vuelos", ex);
+        }
+        out = null;
+    }
+}
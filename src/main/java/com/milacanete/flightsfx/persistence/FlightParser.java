@@ -0,0 +1,316 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.model.Flight;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+/**
+ * Analizador de registros del archivo de vuelos con el formato
+ * "número;destino;dd/MM/yyyy HH:mm;H:mm".
+ * <p> Lee los campos directamente por posición sobre los bytes del archivo, sin expresiones regulares
+ * ni {@code split}, y decodifica las fechas de forma numérica. Solo los valores que no siguen el formato
+ * habitual (por ejemplo, días fuera de rango) se delegan en {@link DateTimeFormatter}, de modo que el
+ * resultado es el mismo que el obtenido con {@code LocalDateTime.parse} y {@code LocalTime.parse}. </p>
+ * <p> Los archivos grandes se dividen en bloques alineados a saltos de línea que se analizan
+ * en paralelo en el pool fork-join común, conservando el orden de las líneas. </p>
+ */
+public class FlightParser {
+
+    /**
+     * Formato de la fecha y hora de salida.
+     */
+    public static final DateTimeFormatter DEPARTURE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /**
+     * Formato de la duración, el patrón usa H para admitir horas de un dígito.
+     */
+    public static final DateTimeFormatter DURATION_FORMAT = DateTimeFormatter.ofPattern("H:mm");
+
+    /**
+     * Tamaño aproximado de cada bloque del archivo que se analiza de forma independiente.
+     */
+    static final long CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private static final Logger logger = Logger.getLogger(FlightParser.class.getName());
+
+    /**
+     * Bloque del archivo delimitado por saltos de línea.
+     * @param start posición inicial (incluida).
+     * @param end posición final (excluida).
+     */
+    record Chunk(long start, long end) {}
+
+    /**
+     * Resultado del análisis de un bloque.
+     * @param flights vuelos leídos, en el orden del archivo.
+     * @param discarded número de líneas con formato incorrecto que se descartaron.
+     */
+    public record ChunkResult(List<Flight> flights, int discarded) {}
+
+    /**
+     * Analiza el archivo completo en paralelo.
+     * @param channel canal abierto sobre el archivo de vuelos.
+     * @return la lista de vuelos en el orden del archivo.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    public static List<Flight> parseAll(FileChannel channel) throws IOException {
+        List<Chunk> chunks = splitChunks(channel, 0, channel.size(), CHUNK_SIZE);
+        List<ChunkResult> results = IntStream.range(0, chunks.size())
+                .parallel()
+                .mapToObj(i -> parseChunk(channel, chunks.get(i)))
+                .toList();
+
+        List<Flight> flights = new ArrayList<>(results.stream().mapToInt(r -> r.flights().size()).sum());
+        int discarded = 0;
+        for (ChunkResult result : results) {
+            flights.addAll(result.flights());
+            discarded += result.discarded();
+        }
+        logDiscarded(discarded);
+        return flights;
+    }
+
+    /**
+     * Divide una región del archivo en bloques del tamaño indicado, extendiendo cada bloque
+     * hasta el siguiente salto de línea para no partir ningún registro.
+     * @param channel canal abierto sobre el archivo.
+     * @param from posición inicial de la región.
+     * @param to posición final de la región.
+     * @param chunkSize tamaño aproximado de cada bloque.
+     * @return los bloques en orden.
+     * @throws IOException si ocurre un error al leer el archivo.
+     */
+    static List<Chunk> splitChunks(FileChannel channel, long from, long to, long chunkSize) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = from;
+        while (start < to) {
+            long end = Math.min(start + chunkSize, to);
+            while (end < to) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = to;
+                    break;
+                }
+                int i = 0;
+                while (i < read && !isLineEnd(probe.get(i))) i++;
+                if (i < read) {
+                    end = Math.min(end + i + 1, to);
+                    break;
+                }
+                end += read;
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Analiza las líneas de un bloque del archivo.
+     * @param channel canal abierto sobre el archivo.
+     * @param chunk bloque a analizar.
+     * @return los vuelos leídos y el número de líneas descartadas.
+     */
+    static ChunkResult parseChunk(FileChannel channel, Chunk chunk) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+            return parseLines(buffer, 0, buffer.limit());
+        } catch (IOException ex) {
+            throw new java.io.UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Analiza las líneas contenidas en una región de un buffer.
+     * Acepta saltos de línea "\n", "\r\n" y "\r", igual que {@link java.io.BufferedReader#readLine()}.
+     * @param buffer buffer con el contenido del archivo.
+     * @param from posición inicial.
+     * @param to posición final.
+     * @return los vuelos leídos y el número de líneas descartadas.
+     */
+    public static ChunkResult parseLines(ByteBuffer buffer, int from, int to) {
+        List<Flight> flights = new ArrayList<>((to - from) / 40 + 1);
+        int discarded = 0;
+        byte[] scratch = new byte[256];
+        int lineStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i < to && !isLineEnd(buffer.get(i))) continue;
+            if (i > lineStart) {
+                if (i - lineStart > scratch.length) scratch = new byte[i - lineStart];
+                Flight flight = parseRecord(buffer, lineStart, i, scratch);
+                if (flight != null) {
+                    flights.add(flight);
+                } else {
+                    discarded++;
+                }
+            }
+            lineStart = i + 1;
+        }
+        return new ChunkResult(flights, discarded);
+    }
+
+    /**
+     * Analiza una línea de texto ya decodificada.
+     * @param line línea con el formato "número;destino;dd/MM/yyyy HH:mm;H:mm".
+     * @return el vuelo leído o {@code null} si la línea no tiene un formato válido.
+     */
+    public static Flight parseLine(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parseRecord(ByteBuffer.wrap(bytes), 0, bytes.length, new byte[bytes.length]);
+    }
+
+    /**
+     * Convierte un vuelo en una línea con el formato del archivo:
+     * "número;destino;dd/MM/yyyy HH:mm;H:mm".
+     * @param flight vuelo a convertir.
+     * @return la línea que representa el vuelo.
+     */
+    public static String format(Flight flight) {
+        return flight.getFlightNumber() + ';' + flight.getDestination() + ';'
+                + flight.getDepartureTime().format(DEPARTURE_FORMAT) + ';'
+                + flight.getDuration().format(DURATION_FORMAT); //formato es hh:mm, para el patrón se usa H
+    }
+
+    /**
+     * Analiza un registro delimitado por posiciones dentro del buffer.
+     * Sigue las reglas de {@code line.split(";")}: debe haber exactamente cuatro campos
+     * y se ignoran los separadores sobrantes al final de la línea.
+     */
+    private static Flight parseRecord(ByteBuffer buffer, int start, int end, byte[] scratch) {
+        int sep1 = indexOf(buffer, start, end);
+        if (sep1 < 0) return null;
+        int sep2 = indexOf(buffer, sep1 + 1, end);
+        if (sep2 < 0) return null;
+        int sep3 = indexOf(buffer, sep2 + 1, end);
+        if (sep3 < 0) return null;
+        int fieldEnd = indexOf(buffer, sep3 + 1, end);
+        if (fieldEnd < 0) {
+            fieldEnd = end;
+        } else {
+            for (int i = fieldEnd; i < end; i++) {
+                if (buffer.get(i) != ';') return null; //hay un quinto campo
+            }
+        }
+        if (fieldEnd == sep3 + 1) return null; //split descarta el cuarto campo si está vacío
+
+        LocalDateTime departureTime = parseDeparture(buffer, sep2 + 1, sep3, scratch);
+        LocalTime duration = parseDuration(buffer, sep3 + 1, fieldEnd, scratch);
+        if (departureTime == null || duration == null) {
+            logger.log(Level.FINE, "Error al parsear una línea: {0}", decode(buffer, start, end, scratch));
+            return null;
+        }
+        return new Flight(
+                decode(buffer, start, sep1, scratch), //flight_number
+                decode(buffer, sep1 + 1, sep2, scratch), //destination
+                departureTime,
+                duration);
+    }
+
+    /**
+     * Decodifica la fecha de salida con el formato "dd/MM/yyyy HH:mm".
+     * @return la fecha de salida o {@code null} si no es válida.
+     */
+    private static LocalDateTime parseDeparture(ByteBuffer buffer, int start, int end, byte[] scratch) {
+        if (end - start == 16
+                && buffer.get(start + 2) == '/' && buffer.get(start + 5) == '/'
+                && buffer.get(start + 10) == ' ' && buffer.get(start + 13) == ':') {
+            int day = digits(buffer, start, 2);
+            int month = digits(buffer, start + 3, 2);
+            int year = digits(buffer, start + 6, 4);
+            int hour = digits(buffer, start + 11, 2);
+            int minute = digits(buffer, start + 14, 2);
+            if (year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month)
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute);
+            }
+        }
+        // Los casos poco habituales se resuelven con el formateador para obtener exactamente el mismo resultado
+        try {
+            return LocalDateTime.parse(decode(buffer, start, end, scratch), DEPARTURE_FORMAT);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodifica la duración con el formato "H:mm".
+     * @return la duración o {@code null} si no es válida.
+     */
+    private static LocalTime parseDuration(ByteBuffer buffer, int start, int end, byte[] scratch) {
+        int length = end - start;
+        if ((length == 4 || length == 5) && buffer.get(end - 3) == ':') {
+            int hour = digits(buffer, start, length - 3);
+            int minute = digits(buffer, end - 2, 2);
+            if (hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return FlightCodec.decodeDuration(hour * 60 + minute); //instancias compartidas, sin crear objetos
+            }
+        }
+        try {
+            return LocalTime.parse(decode(buffer, start, end, scratch), DURATION_FORMAT);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Lee un número decimal de longitud fija.
+     * @return el número leído o -1 si algún carácter no es un dígito.
+     */
+    private static int digits(ByteBuffer buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == ';') return i;
+        }
+        return -1;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end, byte[] scratch) {
+        buffer.get(start, scratch, 0, end - start);
+        return new String(scratch, 0, end - start, StandardCharsets.UTF_8);
+    }
+
+    public static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * Registra un único aviso con el número de líneas descartadas, en lugar de una traza por línea.
+     * @param discarded número de líneas descartadas.
+     */
+    public static void logDiscarded(int discarded) {
+        if (discarded > 0) {
+            logger.log(Level.WARNING, "Se descartaron {0} líneas con formato incorrecto", discarded);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.model.Flight;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Almacén de vuelos con acceso por posición a los atributos de cada vuelo, codificados como en {@link FlightCodec},
+ * sin necesidad de crear un objeto {@link Flight} por vuelo.
+ * <p> Lo implementan {@link BinaryFlightStore} (archivo proyectado en memoria)
+ * y {@link ColumnarFlightStore} (arrays primitivos en el heap). </p>
+ */
+public interface FlightStore {
+
+    /**
+     * Obtiene el número de vuelos del almacén.
+     * @return el número de vuelos.
+     */
+    int size();
+
+    /**
+     * Crea el vuelo que ocupa la posición indicada.
+     * @param index posición del vuelo.
+     * @return el vuelo.
+     */
+    default Flight get(int index) {
+        return new Flight(getFlightNumber(index), getDestination(index),
+                FlightCodec.decodeDeparture(getDepartureMinute(index)),
+                FlightCodec.decodeDuration(getDurationMinutes(index)));
+    }
+
+    /**
+     * Obtiene el número de vuelo de la posición indicada.
+     * @param index posición del vuelo.
+     * @return el número de vuelo.
+     */
+    String getFlightNumber(int index);
+
+    /**
+     * Obtiene la fecha de salida de la posición indicada, en minutos desde 01/01/1970 00:00.
+     * @param index posición del vuelo.
+     * @return la fecha de salida codificada.
+     */
+    int getDepartureMinute(int index);
+
+    /**
+     * Obtiene el destino de la posición indicada.
+     * @param index posición del vuelo.
+     * @return el destino.
+     */
+    String getDestination(int index);
+
+    /**
+     * Obtiene la duración de la posición indicada, en minutos.
+     * @param index posición del vuelo.
+     * @return la duración en minutos.
+     */
+    int getDurationMinutes(int index);
+
+    /**
+     * Obtiene una vista de solo lectura del almacén como lista, que crea cada vuelo al acceder a él.
+     * @return la vista del almacén.
+     */
+    default List<Flight> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Flight get(int index) {
+                return FlightStore.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return FlightStore.this.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.model.Flight;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hilo de escritura en segundo plano (write-behind) para la persistencia de vuelos.
+ * <p> Todas las escrituras en disco de la aplicación se ejecutan en un único hilo, en el orden en que se
+ * solicitan, de modo que el hilo de la interfaz nunca espera a que termine una escritura. </p>
+ * <p> Las peticiones de guardado de la lista completa se agrupan: si llegan varias mientras hay una
+ * pendiente, solo se escribe la más reciente. Cada guardado se escribe primero en un archivo temporal
+ * que luego reemplaza al original de forma atómica, véase {@link FileUtils#saveFlightsToFile(List)}. </p>
+ */
+public class FlightsWriter {
+
+    private static final Logger logger = Logger.getLogger(FlightsWriter.class.getName());
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flights-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guardado pendiente más reciente, null si no hay ninguno en la cola
+    private static final AtomicReference<SaveRequest> pendingSave = new AtomicReference<>();
+
+    /**
+     * Petición de guardado de la lista completa.
+     * @param flights copia de la lista de vuelos a guardar.
+     * @param beforeReplace acción que se ejecuta en el hilo de escritura con la copia ya escrita en el archivo temporal,
+     *                      antes de reemplazar el original, puede ser {@code null}.
+     * @param afterWrite acción que se ejecuta en el hilo de escritura tras guardar correctamente, puede ser {@code null}.
+     */
+    private record SaveRequest(List<Flight> flights, Runnable beforeReplace, Runnable afterWrite) {}
+
+    /**
+     * Ejecuta una escritura en el hilo de escritura, después de todas las solicitadas anteriormente.
+     * @param task escritura a ejecutar.
+     */
+    public static void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Solicita guardar la lista completa de vuelos en "flights.txt".
+     * Si ya hay un guardado pendiente, se sustituye por este, y las acciones del guardado sustituido no se ejecutan.
+     * Si la acción previa al reemplazo lanza una excepción, el archivo original no se reemplaza.
+     * @param flights copia de la lista de vuelos, no debe modificarse después de la llamada.
+     * @param beforeReplace acción que se ejecuta con la copia escrita en el archivo temporal y sincronizada,
+     *                      antes de reemplazar el original, puede ser {@code null}.
+     * @param afterWrite acción que se ejecuta tras guardar correctamente, puede ser {@code null}.
+     */
+    public static void requestSave(List<Flight> flights, Runnable beforeReplace, Runnable afterWrite) {
+        if (pendingSave.getAndSet(new SaveRequest(flights, beforeReplace, afterWrite)) == null) {
+            executor.execute(FlightsWriter::writePendingSave);
+        }
+    }
+
+    /**
+     * Escribe el guardado pendiente más reciente, solo desde el hilo de escritura.
+     */
+    private static void writePendingSave() {
+        SaveRequest request = pendingSave.getAndSet(null);
+        if (request == null) return;
+        try {
+            FileUtils.writeFlights(request.flights(), request.beforeReplace());
+            if (request.afterWrite() != null) {
+                request.afterWrite().run();
+            }
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Error al guardar la lista de vuelos en segundo plano", ex);
+        }
+    }
+
+    /**
+     * Espera a que terminen todas las escrituras solicitadas hasta el momento.
+     */
+    public static void flush() {
+        try {
+            executor.submit(() -> {}).get();
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Error al esperar las escrituras pendientes", ex);
+        }
+    }
+
+    /**
+     * Espera a que terminen las escrituras pendientes y detiene el hilo de escritura.
+     * Se debe llamar una sola vez, al cerrar la aplicación.
+     * @param lastTask última escritura a ejecutar antes de detener el hilo, puede ser {@code null}.
+     */
+    public static void shutdown(Runnable lastTask) {
+        if (lastTask != null) {
+            executor.execute(lastTask);
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.log(Level.WARNING, "No terminaron de escribirse todos los cambios pendientes");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.milacanete.flightsfx.query;
+
+import com.milacanete.flightsfx.model.Flight;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunto de vuelos que comparten una misma clave en un índice secundario.
+ * <p> Admite vuelos repetidos y permite agregar y eliminar en tiempo constante, conservando
+ * el orden en que se agregaron. </p>
+ */
+class FlightBucket {
+
+    private final Map<Flight, Integer> counts = new LinkedHashMap<>();
+    private int size;
+
+    /**
+     * Agrega un vuelo al conjunto.
+     * @param flight vuelo a agregar.
+     */
+    void add(Flight flight) {
+        counts.merge(flight, 1, Integer::sum);
+        size++;
+    }
+
+    /**
+     * Elimina una aparición de un vuelo del conjunto.
+     * @param flight vuelo a eliminar.
+     * @return {@code true} si el conjunto ha quedado vacío.
+     */
+    boolean remove(Flight flight) {
+        Integer count = counts.get(flight);
+        if (count != null) {
+            if (count > 1) {
+                counts.put(flight, count - 1);
+            } else {
+                counts.remove(flight);
+            }
+            size--;
+        }
+        return size == 0;
+    }
+
+    /**
+     * Obtiene el número de vuelos del conjunto, incluidos los repetidos.
+     * @return el número de vuelos.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copia los vuelos del conjunto en una lista, en el orden en que se agregaron,
+     * hasta que la lista alcance el tamaño indicado.
+     * @param target lista donde se agregan los vuelos.
+     * @param limit tamaño máximo de la lista.
+     */
+    void copyTo(List<Flight> target, int limit) {
+        for (Map.Entry<Flight, Integer> entry : counts.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                if (target.size() >= limit) return;
+                target.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Obtiene los vuelos del conjunto en una lista nueva.
+     * @return la lista de vuelos.
+     */
+    List<Flight> toList() {
+        List<Flight> flights = new ArrayList<>(size);
+        copyTo(flights, size);
+        return flights;
+    }
+}
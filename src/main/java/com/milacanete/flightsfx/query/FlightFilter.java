@@ -0,0 +1,214 @@
+package com.milacanete.flightsfx.query;
+
+import com.milacanete.flightsfx.model.DestinationDictionary;
+import com.milacanete.flightsfx.model.Flight;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Filtro de vuelos que se puede combinar con otros mediante {@link #and(FlightFilter)}.
+ * <p> Además de la condición que debe cumplir cada vuelo, un filtro puede indicar cómo obtener de un
+ * {@link FlightIndex} los vuelos candidatos, de modo que {@link com.milacanete.flightsfx.repository.FlightRepository#filter(FlightFilter)}
+ * no tenga que recorrer la lista completa. Al combinar filtros se usa el índice que devuelve menos candidatos. </p>
+ * <p> Los filtros de búsqueda mientras se escribe ({@link #flightNumberPrefix(String, int)} y
+ * {@link #destinationMatching(String, int)}) limitan los candidatos a los mejores, para responder en pocos
+ * milisegundos aunque coincidan millones de vuelos. </p>
+ */
+public final class FlightFilter implements Predicate<Flight> {
+
+    /**
+     * Vuelos candidatos obtenidos de un índice.
+     * @param flights vuelos candidatos, en el orden de {@code order} si lo hay.
+     * @param order orden de mejor a peor de los candidatos limitados de los filtros de búsqueda mientras se escribe,
+     *              que solo compara la clave del índice, o {@code null} si los candidatos no están limitados.
+     * @param limit número máximo de candidatos, o {@link Integer#MAX_VALUE} si no están limitados.
+     */
+    public record Candidates(List<Flight> flights, Comparator<Flight> order, int limit) {}
+
+    /**
+     * Consulta sobre un índice que devuelve un superconjunto de los vuelos que cumplen el filtro,
+     * o los mejores si está limitada.
+     * @param counter cuenta los vuelos que devuelve la consulta, sin copiarlos.
+     * @param finder devuelve los vuelos.
+     */
+    private record IndexLookup(ToIntFunction<FlightIndex> counter, Function<FlightIndex, Candidates> finder) {
+
+        /**
+         * Crea una consulta sin límite de candidatos.
+         */
+        static IndexLookup of(ToIntFunction<FlightIndex> counter, Function<FlightIndex, List<Flight>> finder) {
+            return new IndexLookup(counter, index -> new Candidates(finder.apply(index), null, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Número máximo de destinos que coinciden con el texto en {@link #destinationMatching(String, int)}.
+     */
+    private static final int MAX_MATCHING_DESTINATIONS = 20;
+
+    private final Predicate<Flight> predicate;
+    private final IndexLookup lookup;
+
+    private FlightFilter(Predicate<Flight> predicate, IndexLookup lookup) {
+        this.predicate = predicate;
+        this.lookup = lookup;
+    }
+
+    /**
+     * Filtro por número de vuelo, sin distinguir mayúsculas de minúsculas.
+     * @param flightNumber número de vuelo.
+     * @return el filtro.
+     */
+    public static FlightFilter flightNumber(String flightNumber) {
+        return new FlightFilter(flight -> flight.getFlightNumber().equalsIgnoreCase(flightNumber),
+                IndexLookup.of(index -> index.countByFlightNumber(flightNumber), index -> index.findByFlightNumber(flightNumber)));
+    }
+
+    /**
+     * Filtro por número de vuelo que empieza por un prefijo, sin distinguir mayúsculas de minúsculas.
+     * Los candidatos se ordenan por número de vuelo y se limitan a los primeros.
+     * @param prefix prefijo del número de vuelo, por ejemplo "IB6".
+     * @param limit número máximo de candidatos.
+     * @return el filtro.
+     */
+    public static FlightFilter flightNumberPrefix(String prefix, int limit) {
+        Comparator<Flight> order = Comparator.comparing(flight -> flight.getFlightNumber().toUpperCase(Locale.ROOT));
+        return new FlightFilter(flight -> flight.getFlightNumber().regionMatches(true, 0, prefix, 0, prefix.length()),
+                new IndexLookup(index -> index.countByFlightNumberPrefix(prefix, limit),
+                        index -> new Candidates(index.findByFlightNumberPrefix(prefix, limit), order, limit)));
+    }
+
+    /**
+     * Filtro por los destinos que coinciden con un texto, véase {@link DestinationDictionary#search(String, int)}:
+     * los que empiezan por él, lo contienen o se le parecen. Los candidatos se ordenan de mejor a peor
+     * coincidencia del destino y se limitan a los primeros.
+     * @param text texto buscado, por ejemplo "MAD".
+     * @param limit número máximo de candidatos.
+     * @return el filtro.
+     */
+    public static FlightFilter destinationMatching(String text, int limit) {
+        int[] destinationIds = DestinationDictionary.search(text, MAX_MATCHING_DESTINATIONS);
+        BitSet matching = new BitSet();
+        //posición de cada destino en el resultado de la búsqueda, de mejor a peor coincidencia
+        int[] rank = new int[Arrays.stream(destinationIds).max().orElse(-1) + 1];
+        for (int i = 0; i < destinationIds.length; i++) {
+            matching.set(destinationIds[i]);
+            rank[destinationIds[i]] = i;
+        }
+        Comparator<Flight> order = Comparator.comparingInt(flight -> rank[flight.getDestinationId()]);
+        return new FlightFilter(flight -> flight.getDestinationId() >= 0 && matching.get(flight.getDestinationId()),
+                new IndexLookup(index -> index.countByDestinations(destinationIds, limit),
+                        index -> new Candidates(index.findByDestinations(destinationIds, limit), order, limit)));
+    }
+
+    /**
+     * Filtro por destino, sin distinguir mayúsculas de minúsculas. El destino no se registra en
+     * {@link DestinationDictionary}: mientras no está registrado, ningún vuelo cumple el filtro, y su identificador
+     * se busca de nuevo en cada comprobación, ya que se registra al crear el primer vuelo a ese destino,
+     * por ejemplo uno agregado después a una vista filtrada.
+     * @param destination destino.
+     * @return el filtro.
+     */
+    public static FlightFilter destination(String destination) {
+        //identificador del destino cuando ya está registrado; puede calcularse desde varios hilos, siempre da lo mismo
+        int[] destinationId = {DestinationDictionary.find(destination)};
+        return new FlightFilter(flight -> {
+                    if (destinationId[0] < 0) destinationId[0] = DestinationDictionary.find(destination);
+                    return destinationId[0] >= 0 && flight.getDestinationId() == destinationId[0];
+                },
+                IndexLookup.of(index -> index.countByDestination(destination), index -> index.findByDestination(destination)));
+    }
+
+    /**
+     * Filtro por fecha y hora de salida exacta.
+     * @param departureTime fecha y hora de salida.
+     * @return el filtro.
+     */
+    public static FlightFilter departureAt(LocalDateTime departureTime) {
+        return new FlightFilter(flight -> flight.getDepartureTime().equals(departureTime),
+                IndexLookup.of(index -> index.countByDepartureTime(departureTime), index -> index.findByDepartureTime(departureTime)));
+    }
+
+    /**
+     * Filtro por fecha y hora de salida entre dos fechas, ambas incluidas.
+     * @param from fecha y hora de salida mínima.
+     * @param to fecha y hora de salida máxima.
+     * @return el filtro.
+     */
+    public static FlightFilter departureBetween(LocalDateTime from, LocalDateTime to) {
+        return new FlightFilter(flight -> !flight.getDepartureTime().isBefore(from) && !flight.getDepartureTime().isAfter(to),
+                IndexLookup.of(index -> index.countByDepartureRange(from, to), index -> index.findByDepartureRange(from, to)));
+    }
+
+    /**
+     * Filtro por duración entre dos valores, ambos incluidos.
+     * @param from duración mínima.
+     * @param to duración máxima.
+     * @return el filtro.
+     */
+    public static FlightFilter durationBetween(LocalTime from, LocalTime to) {
+        return new FlightFilter(flight -> !flight.getDuration().isBefore(from) && !flight.getDuration().isAfter(to),
+                IndexLookup.of(index -> index.countByDurationRange(from, to), index -> index.findByDurationRange(from, to)));
+    }
+
+    /**
+     * Filtro por duración mayor que la indicada, que usa el índice por duración desde el minuto siguiente.
+     * @param minutes duración mínima en minutos, no incluida.
+     * @return el filtro.
+     */
+    public static FlightFilter longerThan(int minutes) {
+        Predicate<Flight> predicate = flight -> flight.getDuration().getHour() * 60 + flight.getDuration().getMinute() > minutes;
+        if (minutes < 0 || minutes >= 24 * 60 - 1) {
+            return new FlightFilter(predicate, null); //todos los vuelos o ninguno, no hace falta el índice
+        }
+        LocalTime from = LocalTime.MIN.plusMinutes(minutes + 1);
+        return new FlightFilter(predicate, IndexLookup.of(index -> index.countByDurationRange(from, LocalTime.MAX),
+                index -> index.findByDurationRange(from, LocalTime.MAX)));
+    }
+
+    /**
+     * Combina este filtro con otro, los vuelos deben cumplir ambos.
+     * @param other filtro a combinar.
+     * @return el filtro combinado.
+     */
+    public FlightFilter and(FlightFilter other) {
+        IndexLookup combined;
+        if (lookup == null) {
+            combined = other.lookup;
+        } else if (other.lookup == null) {
+            combined = lookup;
+        } else {
+            //se decide al consultar, ya que el número de candidatos depende de los vuelos indexados
+            IndexLookup first = lookup;
+            IndexLookup second = other.lookup;
+            combined = new IndexLookup(
+                    index -> Math.min(first.counter().applyAsInt(index), second.counter().applyAsInt(index)),
+                    index -> first.counter().applyAsInt(index) <= second.counter().applyAsInt(index)
+                            ? first.finder().apply(index) : second.finder().apply(index));
+        }
+        return new FlightFilter(predicate.and(other.predicate), combined);
+    }
+
+    @Override
+    public boolean test(Flight flight) {
+        return predicate.test(flight);
+    }
+
+    /**
+     * Obtiene del índice los vuelos candidatos, que incluyen todos los que cumplen el filtro,
+     * salvo en los filtros de búsqueda mientras se escribe, que devuelven solo los primeros con su orden y su límite.
+     * @param index índice de vuelos.
+     * @return los vuelos candidatos, o {@code null} si el filtro no puede usar ningún índice.
+     */
+    public Candidates candidates(FlightIndex index) {
+        return lookup != null ? lookup.finder().apply(index) : null;
+    }
+}
@@ -0,0 +1,319 @@
+package com.milacanete.flightsfx.query;
+
+import com.milacanete.flightsfx.model.DestinationDictionary;
+import com.milacanete.flightsfx.model.Flight;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índices en memoria sobre un conjunto de vuelos, independientes de JavaFX.
+ * <ul>
+ *     <li>Índice hash por identidad del vuelo (véase {@link Flight#equals(Object)}), para comprobar
+ *     en tiempo constante si un vuelo existe. Como la lista puede contener vuelos repetidos,
+ *     el índice guarda cuántas veces aparece cada vuelo. Es el único índice que admite consultas
+ *     desde otros hilos con {@link #contains(Flight)}, mientras se modifica desde el hilo de JavaFX.</li>
+ *     <li>Índice ordenado por número de vuelo en mayúsculas, que además de buscar un número permite
+ *     buscar los que empiezan por un prefijo, como un árbol de prefijos (trie).</li>
+ *     <li>Índice por destino, una lista con una posición por identificador de {@link DestinationDictionary},
+ *     de modo que buscar un destino no calcula ningún hash.</li>
+ *     <li>Índices ordenados ({@link NavigableMap}) por fecha y hora de salida y por duración,
+ *     para las consultas por rango en tiempo O(log n + k).</li>
+ * </ul>
+ * <p> Quien modifica la lista debe llamar a {@link #add(Flight)} y {@link #remove(Flight)} por cada cambio. </p>
+ */
+public class FlightIndex {
+
+    private final Map<Flight, Integer> identity = new ConcurrentHashMap<>();
+    private final NavigableMap<String, FlightBucket> byFlightNumber = new TreeMap<>();
+    private final List<FlightBucket> byDestination = new ArrayList<>();
+    private final NavigableMap<LocalDateTime, FlightBucket> byDeparture = new TreeMap<>();
+    private final NavigableMap<LocalTime, FlightBucket> byDuration = new TreeMap<>();
+
+    /**
+     * Agrega un vuelo a los índices.
+     * @param flight vuelo agregado a la lista.
+     */
+    public void add(Flight flight) {
+        identity.merge(flight, 1, Integer::sum);
+        byFlightNumber.computeIfAbsent(flight.getFlightNumber().toUpperCase(Locale.ROOT), _ -> new FlightBucket()).add(flight);
+        destinationBucket(flight.getDestinationId()).add(flight);
+        byDeparture.computeIfAbsent(flight.getDepartureTime(), _ -> new FlightBucket()).add(flight);
+        byDuration.computeIfAbsent(flight.getDuration(), _ -> new FlightBucket()).add(flight);
+    }
+
+    /**
+     * Elimina un vuelo de los índices.
+     * @param flight vuelo eliminado de la lista.
+     */
+    public void remove(Flight flight) {
+        identity.computeIfPresent(flight, (_, count) -> count > 1 ? count - 1 : null);
+        removeFrom(byFlightNumber, flight.getFlightNumber().toUpperCase(Locale.ROOT), flight);
+        if (flight.getDestinationId() < byDestination.size()) {
+            byDestination.get(flight.getDestinationId()).remove(flight);
+        }
+        removeFrom(byDeparture, flight.getDepartureTime(), flight);
+        removeFrom(byDuration, flight.getDuration(), flight);
+    }
+
+    /**
+     * Obtiene el conjunto de vuelos de un destino, ampliando la lista hasta su identificador si es necesario.
+     * Los conjuntos vacíos se conservan, ya que hay un destino por identificador y son pocos.
+     */
+    private FlightBucket destinationBucket(int destinationId) {
+        while (byDestination.size() <= destinationId) byDestination.add(new FlightBucket());
+        return byDestination.get(destinationId);
+    }
+
+    /**
+     * Obtiene el conjunto de vuelos de un destino, o {@code null} si no hay ninguno.
+     */
+    private FlightBucket findDestination(String destination) {
+        int id = DestinationDictionary.find(destination);
+        return id >= 0 && id < byDestination.size() ? byDestination.get(id) : null;
+    }
+
+    /**
+     * Elimina un vuelo del conjunto de una clave, y la clave si el conjunto queda vacío.
+     */
+    private static <K> void removeFrom(Map<K, FlightBucket> index, K key, Flight flight) {
+        FlightBucket bucket = index.get(key);
+        if (bucket != null && bucket.remove(flight)) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Elimina todos los vuelos de los índices.
+     */
+    public void clear() {
+        identity.clear();
+        byFlightNumber.clear();
+        byDestination.clear();
+        byDeparture.clear();
+        byDuration.clear();
+    }
+
+    /**
+     * Comprueba si existe un vuelo igual al indicado.
+     * @param flight vuelo a buscar.
+     * @return {@code true} si existe al menos un vuelo igual, de lo contrario {@code false}.
+     */
+    public boolean contains(Flight flight) {
+        return identity.containsKey(flight);
+    }
+
+    /**
+     * Busca los vuelos con el número indicado, sin distinguir mayúsculas de minúsculas.
+     * @param flightNumber número de vuelo.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByFlightNumber(String flightNumber) {
+        return find(byFlightNumber, flightNumber.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Busca los vuelos cuyo número empieza por un prefijo, sin distinguir mayúsculas de minúsculas,
+     * ordenados por número de vuelo. Recorre solo los números con ese prefijo, en tiempo O(log n + limit).
+     * @param prefix prefijo del número de vuelo.
+     * @param limit número máximo de vuelos.
+     * @return los vuelos encontrados, como máximo {@code limit}.
+     */
+    public List<Flight> findByFlightNumberPrefix(String prefix, int limit) {
+        List<Flight> flights = new ArrayList<>();
+        for (FlightBucket bucket : withPrefix(prefix).values()) {
+            if (flights.size() >= limit) break;
+            bucket.copyTo(flights, limit);
+        }
+        return flights;
+    }
+
+    /**
+     * Busca los vuelos a varios destinos, en el orden de los destinos.
+     * @param destinationIds identificadores de los destinos, véase {@link DestinationDictionary#search(String, int)}.
+     * @param limit número máximo de vuelos.
+     * @return los vuelos encontrados, como máximo {@code limit}.
+     */
+    public List<Flight> findByDestinations(int[] destinationIds, int limit) {
+        List<Flight> flights = new ArrayList<>();
+        for (int id : destinationIds) {
+            if (flights.size() >= limit) break;
+            if (id < byDestination.size()) byDestination.get(id).copyTo(flights, limit);
+        }
+        return flights;
+    }
+
+    /**
+     * Busca los vuelos al destino indicado, sin distinguir mayúsculas de minúsculas.
+     * @param destination destino.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByDestination(String destination) {
+        FlightBucket bucket = findDestination(destination);
+        return bucket != null ? bucket.toList() : List.of();
+    }
+
+    /**
+     * Busca los vuelos que salen en la fecha y hora indicadas.
+     * @param departureTime fecha y hora de salida.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByDepartureTime(LocalDateTime departureTime) {
+        return find(byDeparture, departureTime);
+    }
+
+    /**
+     * Obtiene los próximos vuelos que salen después de la fecha y hora indicadas, ordenados por salida.
+     * Recorre el índice ordenado desde la fecha indicada, en tiempo O(log n + limit).
+     * @param after fecha y hora a partir de la cual se buscan salidas, no incluida.
+     * @param limit número máximo de vuelos.
+     * @return los vuelos encontrados, como máximo {@code limit}.
+     */
+    public List<Flight> findNextDepartures(LocalDateTime after, int limit) {
+        List<Flight> flights = new ArrayList<>(Math.min(limit, identity.size()));
+        for (FlightBucket bucket : byDeparture.tailMap(after, false).values()) {
+            if (flights.size() >= limit) break;
+            bucket.copyTo(flights, limit);
+        }
+        return flights;
+    }
+
+    /**
+     * Busca los vuelos que salen entre dos fechas, ordenados por salida.
+     * @param from fecha y hora de salida mínima, incluida.
+     * @param to fecha y hora de salida máxima, incluida.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByDepartureRange(LocalDateTime from, LocalDateTime to) {
+        return findInRange(byDeparture, from, to);
+    }
+
+    /**
+     * Busca los vuelos con una duración entre dos valores, ordenados por duración.
+     * @param from duración mínima, incluida.
+     * @param to duración máxima, incluida.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByDurationRange(LocalTime from, LocalTime to) {
+        return findInRange(byDuration, from, to);
+    }
+
+    /**
+     * Cuenta los vuelos con el número indicado, sin distinguir mayúsculas de minúsculas.
+     * @param flightNumber número de vuelo.
+     * @return el número de vuelos.
+     */
+    public int countByFlightNumber(String flightNumber) {
+        return count(byFlightNumber, flightNumber.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Cuenta los vuelos cuyo número empieza por un prefijo, sin distinguir mayúsculas de minúsculas.
+     * @param prefix prefijo del número de vuelo.
+     * @param limit número máximo de vuelos a contar, deja de recorrer el índice al alcanzarlo.
+     * @return el número de vuelos, como máximo {@code limit}.
+     */
+    public int countByFlightNumberPrefix(String prefix, int limit) {
+        int count = 0;
+        for (FlightBucket bucket : withPrefix(prefix).values()) {
+            if (count >= limit) break;
+            count += bucket.size();
+        }
+        return Math.min(count, limit);
+    }
+
+    /**
+     * Cuenta los vuelos a varios destinos.
+     * @param destinationIds identificadores de los destinos.
+     * @param limit número máximo de vuelos a contar.
+     * @return el número de vuelos, como máximo {@code limit}.
+     */
+    public int countByDestinations(int[] destinationIds, int limit) {
+        long count = 0;
+        for (int id : destinationIds) {
+            if (id < byDestination.size()) count += byDestination.get(id).size();
+        }
+        return (int) Math.min(count, limit);
+    }
+
+    /**
+     * Cuenta los vuelos al destino indicado, sin distinguir mayúsculas de minúsculas.
+     * @param destination destino.
+     * @return el número de vuelos.
+     */
+    public int countByDestination(String destination) {
+        FlightBucket bucket = findDestination(destination);
+        return bucket != null ? bucket.size() : 0;
+    }
+
+    /**
+     * Cuenta los vuelos que salen en la fecha y hora indicadas.
+     * @param departureTime fecha y hora de salida.
+     * @return el número de vuelos.
+     */
+    public int countByDepartureTime(LocalDateTime departureTime) {
+        return count(byDeparture, departureTime);
+    }
+
+    /**
+     * Cuenta los vuelos que salen entre dos fechas, sumando el tamaño de cada hora de salida sin copiar los vuelos.
+     * @param from fecha y hora de salida mínima, incluida.
+     * @param to fecha y hora de salida máxima, incluida.
+     * @return el número de vuelos.
+     */
+    public int countByDepartureRange(LocalDateTime from, LocalDateTime to) {
+        return countInRange(byDeparture, from, to);
+    }
+
+    /**
+     * Cuenta los vuelos con una duración entre dos valores, sumando el tamaño de cada duración sin copiar los vuelos.
+     * @param from duración mínima, incluida.
+     * @param to duración máxima, incluida.
+     * @return el número de vuelos.
+     */
+    public int countByDurationRange(LocalTime from, LocalTime to) {
+        return countInRange(byDuration, from, to);
+    }
+
+    /**
+     * Obtiene la parte del índice por número de vuelo con los números que empiezan por un prefijo.
+     */
+    private NavigableMap<String, FlightBucket> withPrefix(String prefix) {
+        String key = prefix.toUpperCase(Locale.ROOT);
+        return byFlightNumber.subMap(key, true, key + Character.MAX_VALUE, false);
+    }
+
+    private static <K extends Comparable<? super K>> List<Flight> findInRange(NavigableMap<K, FlightBucket> index, K from, K to) {
+        List<Flight> flights = new ArrayList<>();
+        if (from.compareTo(to) > 0) return flights;
+        for (FlightBucket bucket : index.subMap(from, true, to, true).values()) {
+            bucket.copyTo(flights, Integer.MAX_VALUE);
+        }
+        return flights;
+    }
+
+    private static <K extends Comparable<? super K>> int countInRange(NavigableMap<K, FlightBucket> index, K from, K to) {
+        if (from.compareTo(to) > 0) return 0;
+        int count = 0;
+        for (FlightBucket bucket : index.subMap(from, true, to, true).values()) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    private static <K> List<Flight> find(Map<K, FlightBucket> index, K key) {
+        FlightBucket bucket = index.get(key);
+        return bucket != null ? bucket.toList() : List.of();
+    }
+
+    private static <K> int count(Map<K, FlightBucket> index, K key) {
+        FlightBucket bucket = index.get(key);
+        return bucket != null ? bucket.size() : 0;
+    }
+}
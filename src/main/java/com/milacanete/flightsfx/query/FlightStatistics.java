@@ -0,0 +1,149 @@
+package com.milacanete.flightsfx.query;
+
+import com.milacanete.flightsfx.model.DestinationDictionary;
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FlightCodec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+
+/**
+ * Estadísticas de un conjunto de vuelos que se mantienen actualizadas con cada cambio, sin recorrer la lista.
+ * <ul>
+ *     <li>Número de vuelos y suma de las duraciones, para la duración media.</li>
+ *     <li>Histograma de duraciones por minuto (0 a 1439), para la duración mínima y máxima.</li>
+ *     <li>Número de vuelos por destino, en un array indexado por el identificador de {@link DestinationDictionary}.</li>
+ * </ul>
+ * <p> Agregar o eliminar un vuelo cuesta O(1): solo cuando se elimina el último vuelo con la duración mínima
+ * o máxima se busca la siguiente en el histograma, que tiene un tamaño fijo. </p>
+ * <p> Quien modifica la lista debe llamar a {@link #add(Flight)} y {@link #remove(Flight)} por cada cambio. </p>
+ */
+public class FlightStatistics {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int[] durationHistogram = new int[MINUTES_PER_DAY];
+    private long[] destinationCounts = new long[16];
+    private long count;
+    private long durationSum;
+    private int minDuration = MINUTES_PER_DAY;
+    private int maxDuration = -1;
+
+    /**
+     * Agrega un vuelo a las estadísticas.
+     * @param flight vuelo agregado a la lista.
+     */
+    public void add(Flight flight) {
+        int duration = FlightCodec.encodeDuration(flight.getDuration());
+        count++;
+        durationSum += duration;
+        durationHistogram[duration]++;
+        minDuration = Math.min(minDuration, duration);
+        maxDuration = Math.max(maxDuration, duration);
+        int destinationId = flight.getDestinationId();
+        if (destinationId >= destinationCounts.length) {
+            destinationCounts = Arrays.copyOf(destinationCounts, Math.max(destinationId + 1, destinationCounts.length * 2));
+        }
+        destinationCounts[destinationId]++;
+    }
+
+    /**
+     * Elimina un vuelo de las estadísticas.
+     * @param flight vuelo eliminado de la lista.
+     */
+    public void remove(Flight flight) {
+        int duration = FlightCodec.encodeDuration(flight.getDuration());
+        if (durationHistogram[duration] == 0) return; //el vuelo no estaba en las estadísticas
+        count--;
+        durationSum -= duration;
+        durationHistogram[duration]--;
+        int destinationId = flight.getDestinationId();
+        if (destinationId < destinationCounts.length && destinationCounts[destinationId] > 0) {
+            destinationCounts[destinationId]--;
+        }
+
+        if (count == 0) {
+            minDuration = MINUTES_PER_DAY;
+            maxDuration = -1;
+            return;
+        }
+        //si era el último vuelo con la duración mínima o máxima, buscar la siguiente en el histograma
+        while (durationHistogram[minDuration] == 0) minDuration++;
+        while (durationHistogram[maxDuration] == 0) maxDuration--;
+    }
+
+    /**
+     * Elimina todos los vuelos de las estadísticas.
+     */
+    public void clear() {
+        Arrays.fill(durationHistogram, 0);
+        Arrays.fill(destinationCounts, 0);
+        count = 0;
+        durationSum = 0;
+        minDuration = MINUTES_PER_DAY;
+        maxDuration = -1;
+    }
+
+    /**
+     * Obtiene el número de vuelos.
+     * @return el número de vuelos.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Obtiene la suma de las duraciones de todos los vuelos, en minutos.
+     * @return la suma de las duraciones.
+     */
+    public long getDurationSum() {
+        return durationSum;
+    }
+
+    /**
+     * Obtiene la duración media de los vuelos, en minutos.
+     * @return la duración media, o vacío si no hay vuelos.
+     */
+    public OptionalDouble getAverageDuration() {
+        return count > 0 ? OptionalDouble.of((double) durationSum / count) : OptionalDouble.empty();
+    }
+
+    /**
+     * Obtiene la duración mínima de los vuelos, en minutos.
+     * @return la duración mínima, o vacío si no hay vuelos.
+     */
+    public OptionalInt getMinDuration() {
+        return count > 0 ? OptionalInt.of(minDuration) : OptionalInt.empty();
+    }
+
+    /**
+     * Obtiene la duración máxima de los vuelos, en minutos.
+     * @return la duración máxima, o vacío si no hay vuelos.
+     */
+    public OptionalInt getMaxDuration() {
+        return count > 0 ? OptionalInt.of(maxDuration) : OptionalInt.empty();
+    }
+
+    /**
+     * Obtiene el número de vuelos a un destino.
+     * @param destinationId identificador del destino en {@link DestinationDictionary}.
+     * @return el número de vuelos, 0 si no hay ninguno.
+     */
+    public long getDestinationCount(int destinationId) {
+        return destinationId >= 0 && destinationId < destinationCounts.length ? destinationCounts[destinationId] : 0;
+    }
+
+    /**
+     * Obtiene el número de vuelos de cada destino con algún vuelo, por el nombre del destino.
+     * @return copia del número de vuelos por destino.
+     */
+    public Map<String, Long> getDestinationCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (int id = 0; id < destinationCounts.length; id++) {
+            if (destinationCounts[id] > 0) counts.put(DestinationDictionary.getName(id), destinationCounts[id]);
+        }
+        return counts;
+    }
+}
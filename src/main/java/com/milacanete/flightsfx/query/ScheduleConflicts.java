@@ -0,0 +1,135 @@
+package com.milacanete.flightsfx.query;
+
+import com.milacanete.flightsfx.model.Flight;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Detección de conflictos de horario, independiente de JavaFX: dos vuelos con el mismo número de vuelo,
+ * sin distinguir mayúsculas de minúsculas, que están en el aire a la vez. Cada vuelo ocupa el intervalo
+ * [salida, salida + duración), de modo que un vuelo que sale justo cuando llega el anterior no es un conflicto.
+ * <p> {@link #findAll(Collection)} encuentra todos los conflictos de una lista con un barrido (sweep line):
+ * agrupa los vuelos por número, ordena cada grupo por salida y lo recorre manteniendo los vuelos que siguen
+ * en el aire en una cola ordenada por llegada. En total tarda O(n log n + k), siendo k el número de conflictos,
+ * en lugar de comparar todas las parejas de vuelos. </p>
+ * <p> Si los vuelos ya llegan ordenados por salida, por ejemplo al escribir un archivo ordenado,
+ * {@link Sweep} encuentra los conflictos según llegan, sin mantener la lista completa. </p>
+ * <p> Para comprobar un solo vuelo al agregarlo o actualizarlo basta con {@link #overlaps(Flight, Flight)}
+ * sobre los vuelos del mismo número, véase {@link com.milacanete.flightsfx.repository.FlightRepository#findConflicts(Flight, Flight)}. </p>
+ */
+public final class ScheduleConflicts {
+
+    /**
+     * Conflicto entre dos vuelos con el mismo número que se solapan.
+     * @param first vuelo que sale antes, o el primero de la lista si salen a la vez.
+     * @param second vuelo que sale después.
+     */
+    public record Conflict(Flight first, Flight second) {}
+
+    private static final Comparator<Flight> BY_DEPARTURE = Comparator.comparing(Flight::getDepartureTime);
+
+    private ScheduleConflicts() {
+    }
+
+    /**
+     * Obtiene la fecha y hora de llegada de un vuelo, la salida más la duración.
+     * @param flight vuelo.
+     * @return la fecha y hora de llegada.
+     */
+    public static LocalDateTime arrival(Flight flight) {
+        return flight.getDepartureTime().plusSeconds(flight.getDuration().toSecondOfDay());
+    }
+
+    /**
+     * Comprueba si dos vuelos están en conflicto: tienen el mismo número y sus intervalos se solapan.
+     * Dos vuelos que salen a la vez siempre se solapan, aunque su duración sea cero.
+     * @param flight vuelo.
+     * @param other otro vuelo.
+     * @return {@code true} si los vuelos están en conflicto.
+     */
+    public static boolean overlaps(Flight flight, Flight other) {
+        if (!flight.getFlightNumber().equalsIgnoreCase(other.getFlightNumber())) return false;
+        return flight.getDepartureTime().equals(other.getDepartureTime())
+                || flight.getDepartureTime().isBefore(arrival(other)) && other.getDepartureTime().isBefore(arrival(flight));
+    }
+
+    /**
+     * Encuentra todos los conflictos de horario de una lista de vuelos.
+     * @param flights vuelos, no se modifican.
+     * @return los conflictos, ordenados por número de vuelo y salida.
+     */
+    public static List<Conflict> findAll(Collection<Flight> flights) {
+        Map<String, List<Flight>> byNumber = new HashMap<>();
+        for (Flight flight : flights) {
+            byNumber.computeIfAbsent(flight.getFlightNumber().toUpperCase(Locale.ROOT), _ -> new ArrayList<>()).add(flight);
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        for (List<Flight> group : new TreeMap<>(byNumber).values()) {
+            if (group.size() > 1) sweep(group, conflicts);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Recorre los vuelos de un número por orden de salida, véase {@link Sweep}.
+     */
+    private static void sweep(List<Flight> group, List<Conflict> conflicts) {
+        group.sort(BY_DEPARTURE);
+        Sweep sweep = new Sweep();
+        for (Flight flight : group) {
+            sweep.add(flight, conflicts::add);
+        }
+    }
+
+    /**
+     * Barrido incremental sobre vuelos que se reciben ordenados por salida, de cualquier número.
+     * Por cada número guarda en una cola ordenada por llegada los vuelos que pueden seguir en el aire;
+     * antes de cada vuelo descarta de su cola los que ya llegaron y los que quedan están en conflicto con él.
+     * <p> Solo conserva los últimos vuelos de cada número, no todos los recibidos. </p>
+     */
+    public static final class Sweep {
+
+        private final Map<String, PriorityQueue<InAir>> inAir = new HashMap<>();
+        private LocalDateTime lastDeparture;
+
+        /**
+         * Agrega el siguiente vuelo e informa de sus conflictos con los vuelos ya agregados.
+         * @param flight vuelo, no puede salir antes que el anterior.
+         * @param conflicts recibe cada conflicto del vuelo, con el vuelo anterior como {@link Conflict#first()}.
+         * @throws IllegalArgumentException si el vuelo sale antes que el anterior.
+         */
+        public void add(Flight flight, Consumer<Conflict> conflicts) {
+            LocalDateTime departure = flight.getDepartureTime();
+            if (lastDeparture != null && departure.isBefore(lastDeparture)) {
+                throw new IllegalArgumentException("Los vuelos deben recibirse ordenados por salida: " + flight);
+            }
+            lastDeparture = departure;
+
+            PriorityQueue<InAir> queue = inAir.computeIfAbsent(flight.getFlightNumber().toUpperCase(Locale.ROOT),
+                    _ -> new PriorityQueue<>(Comparator.comparing(InAir::arrival)));
+            while (!queue.isEmpty() && !queue.peek().arrival().isAfter(departure)
+                    && queue.peek().flight().getDepartureTime().isBefore(departure)) {
+                queue.poll();
+            }
+            for (InAir other : queue) {
+                if (overlaps(other.flight(), flight)) conflicts.accept(new Conflict(other.flight(), flight));
+            }
+            queue.add(new InAir(flight, arrival(flight)));
+        }
+    }
+
+    /**
+     * Vuelo en el aire durante el barrido, con su llegada calculada una sola vez.
+     */
+    private record InAir(Flight flight, LocalDateTime arrival) {}
+}
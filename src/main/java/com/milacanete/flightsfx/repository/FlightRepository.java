@@ -0,0 +1,198 @@
+package com.milacanete.flightsfx.repository;
+
+import com.milacanete.flightsfx.model.DestinationDictionary;
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FlightStore;
+import com.milacanete.flightsfx.query.FlightFilter;
+import com.milacanete.flightsfx.query.FlightIndex;
+import com.milacanete.flightsfx.query.FlightStatistics;
+import com.milacanete.flightsfx.query.ScheduleConflicts;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repositorio de vuelos de la aplicación, entre la persistencia ({@link com.milacanete.flightsfx.persistence.FileUtils})
+ * y los controladores.
+ * <p> Contiene la lista observable de vuelos que muestra la interfaz y un {@link FlightIndex} que se mantiene
+ * actualizado escuchando los cambios de la lista, sea cual sea su origen (carga, edición o diario de cambios).
+ * La lista solo debe modificarse desde el hilo de JavaFX. </p>
+ * <p> Los vuelos se guardan como objetos {@link Flight}, cientos de bytes por vuelo. Para archivos demasiado grandes
+ * está la vista paginada de solo lectura, sobre un {@link com.milacanete.flightsfx.persistence.ColumnarFlightStore}
+ * o un {@link com.milacanete.flightsfx.persistence.BinaryFlightStore}, véase {@link PagedFlightList}. </p>
+ */
+public class FlightRepository {
+
+    private final ObservableList<Flight> flights = FXCollections.observableArrayList();
+    private final FlightIndex index = new FlightIndex();
+    private final FlightStatistics statistics = new FlightStatistics();
+    private FlightStore pagedStore;
+
+    /**
+     * Crea un repositorio vacío.
+     */
+    public FlightRepository() {
+        flights.addListener(this::updateIndex);
+    }
+
+    /**
+     * Actualiza los índices y las estadísticas con los vuelos agregados y eliminados de la lista.
+     * @param change cambio producido en la lista.
+     */
+    private void updateIndex(ListChangeListener.Change<? extends Flight> change) {
+        while (change.next()) {
+            if (change.wasPermutated()) continue; //el orden no afecta a los índices
+            for (Flight flight : change.getRemoved()) {
+                index.remove(flight);
+                statistics.remove(flight);
+            }
+            for (Flight flight : change.getAddedSubList()) {
+                index.add(flight);
+                statistics.add(flight);
+            }
+        }
+    }
+
+    /**
+     * Obtiene la lista observable de vuelos.
+     * @return la lista observable de vuelos.
+     */
+    public ObservableList<Flight> getFlights() {
+        return flights;
+    }
+
+    /**
+     * Obtiene el almacén que muestra la vista paginada, en la que la lista de vuelos queda vacía.
+     * @return el almacén de la vista paginada, o {@code null} si no está activa.
+     */
+    public FlightStore getPagedStore() {
+        return pagedStore;
+    }
+
+    /**
+     * Asigna el almacén que muestra la vista paginada.
+     * @param pagedStore almacén de solo lectura con los vuelos.
+     */
+    public void setPagedStore(FlightStore pagedStore) {
+        this.pagedStore = pagedStore;
+    }
+
+    /**
+     * Comprueba si hay vuelos que mostrar o analizar: los del almacén de la vista paginada si está activa,
+     * o los de la lista de vuelos en el resto de casos.
+     * @return {@code true} si hay algún vuelo.
+     */
+    public boolean hasFlights() {
+        return pagedStore != null ? pagedStore.size() > 0 : !flights.isEmpty();
+    }
+
+    /**
+     * Obtiene las estadísticas de la lista de vuelos, actualizadas con cada cambio.
+     * @return las estadísticas de los vuelos.
+     */
+    public FlightStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Comprueba si existe un vuelo igual al indicado, en tiempo constante.
+     * A diferencia del resto de consultas, se puede llamar desde cualquier hilo.
+     * @param flight vuelo a buscar.
+     * @return {@code true} si el vuelo existe, de lo contrario {@code false}.
+     */
+    public boolean contains(Flight flight) {
+        return index.contains(flight);
+    }
+
+    /**
+     * Comprueba si existe un vuelo con los datos indicados, en tiempo constante.
+     * El destino se compara sin distinguir mayúsculas de minúsculas.
+     * @param flightNumber número del vuelo.
+     * @param destination destino del vuelo.
+     * @param departureTime hora de salida del vuelo.
+     * @param duration duración del vuelo.
+     * @return {@code true} si el vuelo existe, de lo contrario {@code false}.
+     */
+    public boolean contains(String flightNumber, String destination, LocalDateTime departureTime, LocalTime duration) {
+        //un destino que no está en el diccionario no tiene vuelos, y así no se registra lo que se está escribiendo
+        if (DestinationDictionary.find(destination) < 0) return false;
+        return index.contains(new Flight(flightNumber, destination, departureTime, duration));
+    }
+
+    /**
+     * Busca los vuelos con el número indicado, sin distinguir mayúsculas de minúsculas.
+     * @param flightNumber número de vuelo.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByFlightNumber(String flightNumber) {
+        return index.findByFlightNumber(flightNumber);
+    }
+
+    /**
+     * Busca los vuelos al destino indicado, sin distinguir mayúsculas de minúsculas.
+     * @param destination destino.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByDestination(String destination) {
+        return index.findByDestination(destination);
+    }
+
+    /**
+     * Busca los vuelos que salen en la fecha y hora indicadas.
+     * @param departureTime fecha y hora de salida.
+     * @return los vuelos encontrados, o una lista vacía.
+     */
+    public List<Flight> findByDepartureTime(LocalDateTime departureTime) {
+        return index.findByDepartureTime(departureTime);
+    }
+
+    /**
+     * Obtiene los próximos vuelos que salen después de la fecha y hora indicadas, ordenados por salida.
+     * @param after fecha y hora a partir de la cual se buscan salidas, no incluida.
+     * @param limit número máximo de vuelos.
+     * @return los vuelos encontrados, como máximo {@code limit}.
+     */
+    public List<Flight> findNextDepartures(LocalDateTime after, int limit) {
+        return index.findNextDepartures(after, limit);
+    }
+
+    /**
+     * Busca los vuelos con el mismo número que se solapan con un vuelo, véase {@link ScheduleConflicts}.
+     * Solo recorre los vuelos de ese número, obtenidos del índice.
+     * @param flight vuelo que se va a agregar, o el vuelo nuevo de una actualización.
+     * @param replaced vuelo que se va a sustituir en una actualización, que no se compara, o {@code null}.
+     * @return los vuelos en conflicto, o una lista vacía.
+     */
+    public List<Flight> findConflicts(Flight flight, Flight replaced) {
+        List<Flight> conflicts = new ArrayList<>();
+        boolean skipped = replaced == null;
+        for (Flight other : index.findByFlightNumber(flight.getFlightNumber())) {
+            if (!skipped && other.equals(replaced)) {
+                skipped = true; //solo se ignora una vez, la lista puede tener vuelos repetidos
+            } else if (ScheduleConflicts.overlaps(flight, other)) {
+                conflicts.add(other);
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Crea una vista de los vuelos que cumplen un filtro, que se actualiza con cada cambio de la lista.
+     * Si el filtro puede usar un índice, la vista se crea a partir de sus candidatos sin recorrer la lista;
+     * si no, es una {@link FilteredList} sobre la lista completa.
+     * @param filter filtro que deben cumplir los vuelos.
+     * @return la vista de solo lectura con los vuelos que cumplen el filtro.
+     */
+    public ObservableList<Flight> filter(FlightFilter filter) {
+        FlightFilter.Candidates candidates = filter.candidates(index);
+        if (candidates == null) {
+            return new FilteredList<>(flights, filter);
+        }
+        return new IndexedFlightView(flights, candidates, filter);
+    }
+}
@@ -0,0 +1,155 @@
+package com.milacanete.flightsfx.repository;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.query.FlightFilter;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.collections.WeakListChangeListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Vista observable de solo lectura con los vuelos de una lista que cumplen un filtro,
+ * creada a partir de los candidatos de un índice en lugar de recorrer la lista completa.
+ * <p> Después se mantiene actualizada con los cambios de la lista, como {@link javafx.collections.transformation.FilteredList}:
+ * los vuelos agregados que cumplen el filtro se añaden al final y los eliminados se quitan de la vista.
+ * Escucha la lista mediante un listener débil, por lo que deja de actualizarse cuando ya nadie la usa. </p>
+ * <p> Si los candidatos están limitados a los mejores, como en la búsqueda mientras se escribe, los vuelos agregados
+ * se insertan en su posición según el orden de los candidatos y la vista no pasa del límite: un vuelo que queda
+ * por detrás del último de una vista completa no se muestra, y el que sobra al insertar otro se quita.
+ * Los vuelos eliminados no se sustituyen por los que quedaron fuera del límite, por lo que la vista
+ * puede mostrar menos vuelos que el límite hasta que se vuelve a filtrar. </p>
+ */
+class IndexedFlightView extends ObservableListBase<Flight> {
+
+    private final List<Flight> flights = new ArrayList<>();
+    private final Predicate<Flight> filter;
+    private final Comparator<Flight> order;
+    private final int limit;
+    private final ListChangeListener<Flight> sourceListener = this::sourceChanged;
+
+    /**
+     * Crea la vista.
+     * @param source lista de vuelos de la que se obtienen los cambios.
+     * @param candidates vuelos de la lista obtenidos de un índice, incluyen todos los que cumplen el filtro
+     *                   o, si están limitados, los mejores según su orden.
+     * @param filter condición que deben cumplir los vuelos de la vista.
+     */
+    IndexedFlightView(ObservableList<Flight> source, FlightFilter.Candidates candidates, Predicate<Flight> filter) {
+        this.filter = filter;
+        this.order = candidates.order();
+        this.limit = candidates.limit();
+        for (Flight flight : candidates.flights()) {
+            if (filter.test(flight)) flights.add(flight);
+        }
+        source.addListener(new WeakListChangeListener<>(sourceListener));
+    }
+
+    /**
+     * Aplica a la vista los vuelos agregados y eliminados de la lista.
+     * @param change cambio producido en la lista.
+     */
+    private void sourceChanged(ListChangeListener.Change<? extends Flight> change) {
+        beginChange();
+        while (change.next()) {
+            if (change.wasPermutated()) continue; //el orden de la lista no afecta a la vista
+            if (change.wasRemoved()) removeMatching(change.getRemoved());
+            for (Flight flight : change.getAddedSubList()) {
+                if (filter.test(flight)) addMatching(flight);
+            }
+        }
+        endChange();
+    }
+
+    /**
+     * Agrega un vuelo que cumple el filtro: al final, o en su posición si los candidatos están ordenados.
+     */
+    private void addMatching(Flight flight) {
+        if (order == null) {
+            flights.add(flight);
+            nextAdd(flights.size() - 1, flights.size());
+            return;
+        }
+        int index = bound(flight, true); //detrás de los vuelos con la misma clave, como en el índice
+        if (index >= limit) return;
+        flights.add(index, flight);
+        nextAdd(index, index + 1);
+        if (flights.size() > limit) {
+            Flight last = flights.remove(flights.size() - 1);
+            nextRemove(flights.size(), last);
+        }
+    }
+
+    /**
+     * Quita de la vista un vuelo igual a cada uno de los eliminados de la lista, sin buscarlos uno a uno:
+     * con candidatos ordenados se busca cada uno por su clave, y si no, se recorre la vista una sola vez.
+     */
+    private void removeMatching(List<? extends Flight> removed) {
+        if (order != null) {
+            for (Flight flight : removed) {
+                if (!filter.test(flight)) continue;
+                for (int i = bound(flight, false), end = bound(flight, true); i < end; i++) {
+                    if (flights.get(i).equals(flight)) {
+                        flights.remove(i);
+                        nextRemove(i, flight);
+                        break;
+                    }
+                }
+            }
+            return;
+        }
+
+        //número de vuelos iguales a cada uno que quedan por quitar
+        Map<Flight, Integer> pending = new HashMap<>();
+        for (Flight flight : removed) {
+            if (filter.test(flight)) pending.merge(flight, 1, Integer::sum);
+        }
+        if (pending.isEmpty()) return;
+        int to = 0;
+        for (int from = 0; from < flights.size(); from++) {
+            Flight flight = flights.get(from);
+            Integer count = pending.isEmpty() ? null : pending.get(flight);
+            if (count != null) {
+                if (count == 1) pending.remove(flight); else pending.put(flight, count - 1);
+                nextRemove(to, flight); //posición en la vista tras quitar los anteriores
+            } else {
+                flights.set(to++, flight);
+            }
+        }
+        flights.subList(to, flights.size()).clear();
+    }
+
+    /**
+     * Busca por búsqueda binaria la posición del primer vuelo con una clave mayor que la del indicado,
+     * o mayor o igual si {@code upper} es {@code false}.
+     */
+    private int bound(Flight flight, boolean upper) {
+        int low = 0;
+        int high = flights.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = order.compare(flights.get(middle), flight);
+            if (comparison < 0 || upper && comparison == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public Flight get(int index) {
+        return flights.get(index);
+    }
+
+    @Override
+    public int size() {
+        return flights.size();
+    }
+}
@@ -0,0 +1,78 @@
+package com.milacanete.flightsfx.repository;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FlightStore;
+import javafx.collections.ObservableListBase;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lista observable de solo lectura sobre un {@link FlightStore}, para mostrar en la tabla
+ * conjuntos de vuelos demasiado grandes para tenerlos en memoria como objetos {@link Flight}.
+ * <p> Los vuelos se decodifican por páginas solo cuando la tabla los pide, es decir, las filas visibles
+ * y las de alrededor que comparten página con ellas. Se conservan como máximo {@link #MAX_PAGES} páginas,
+ * descartando la usada hace más tiempo (LRU), por lo que la memoria ocupada no depende del número de vuelos. </p>
+ * <p> La lista no admite modificaciones, ni se debe usar con operaciones que recorren toda la lista
+ * como {@link #contains(Object)} o {@link #indexOf(Object)}. </p>
+ */
+public class PagedFlightList extends ObservableListBase<Flight> {
+
+    /**
+     * Número de vuelos de cada página.
+     */
+    public static final int PAGE_SIZE = 256;
+
+    /**
+     * Número máximo de páginas decodificadas que se conservan.
+     */
+    public static final int MAX_PAGES = 64;
+
+    private final FlightStore store;
+
+    // Páginas decodificadas por número de página, en orden de uso
+    private final Map<Integer, Flight[]> pages = new LinkedHashMap<>(MAX_PAGES * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Flight[]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    /**
+     * Crea una lista sobre un almacén de vuelos.
+     * @param store almacén con los vuelos, por ejemplo un archivo binario abierto.
+     */
+    public PagedFlightList(FlightStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Flight get(int index) {
+        Objects.checkIndex(index, store.size());
+        Flight[] page = pages.get(index / PAGE_SIZE);
+        if (page == null) {
+            page = loadPage(index / PAGE_SIZE);
+            pages.put(index / PAGE_SIZE, page);
+        }
+        return page[index % PAGE_SIZE];
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Decodifica los vuelos de una página.
+     * @param pageNumber número de página.
+     * @return los vuelos de la página.
+     */
+    private Flight[] loadPage(int pageNumber) {
+        int first = pageNumber * PAGE_SIZE;
+        Flight[] page = new Flight[Math.min(PAGE_SIZE, store.size() - first)];
+        for (int i = 0; i < page.length; i++) {
+            page[i] = store.get(first + i);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,169 @@
+package com.milacanete.flightsfx.utils;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FlightJournal;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Historial de cambios de la lista de vuelos para deshacer y rehacer.
+ * <p> Cada cambio se guarda como un registro del diario ({@link FlightJournal.Entry}): alta, baja o actualización
+ * de un vuelo. Deshacer aplica la operación inversa y rehacer vuelve a aplicar la original, por lo que cada
+ * cambio ocupa unos pocos objetos, sin copiar la lista. </p>
+ * <p> Las operaciones se aplican con las mismas reglas que {@link FlightJournal#apply} y se registran en el diario,
+ * así el archivo queda igual que la lista. Si un cambio ya no se puede deshacer, por ejemplo, porque el vuelo
+ * lo eliminó otra aplicación, el historial se vacía. </p>
+ * <p> El historial guarda como máximo {@link #MAX_DEPTH} cambios y unos {@link #MAX_MEMORY} bytes:
+ * al superarlos se descartan los cambios más antiguos. Solo se usa desde el hilo de JavaFX. </p>
+ */
+public class FlightHistory {
+
+    /**
+     * Número máximo de cambios que se pueden deshacer.
+     */
+    public static final int MAX_DEPTH = 500;
+
+    /**
+     * Memoria máxima aproximada del historial, en bytes.
+     */
+    public static final long MAX_MEMORY = 1024 * 1024;
+
+    // Tamaño aproximado de un registro y de cada vuelo que referencia
+    private static final long ENTRY_BYTES = 32;
+    private static final long FLIGHT_BYTES = 200;
+
+    private final FlightJournal journal;
+    private final Deque<FlightJournal.Entry> undoStack = new ArrayDeque<>();
+    private final Deque<FlightJournal.Entry> redoStack = new ArrayDeque<>();
+    private final ReadOnlyBooleanWrapper canUndo = new ReadOnlyBooleanWrapper();
+    private final ReadOnlyBooleanWrapper canRedo = new ReadOnlyBooleanWrapper();
+    private long memory;
+
+    /**
+     * Crea un historial vacío.
+     * @param journal diario donde se registran los cambios al deshacer y rehacer.
+     */
+    public FlightHistory(FlightJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Guarda un cambio realizado en la lista, que ya está registrado en el diario.
+     * Los cambios deshechos hasta el momento ya no se pueden rehacer.
+     * @param edit cambio realizado.
+     */
+    public void record(FlightJournal.Entry edit) {
+        redoStack.forEach(entry -> memory -= sizeOf(entry));
+        redoStack.clear();
+        undoStack.addLast(edit);
+        memory += sizeOf(edit);
+        while (undoStack.size() > MAX_DEPTH || memory > MAX_MEMORY) {
+            memory -= sizeOf(undoStack.removeFirst());
+        }
+        updateProperties();
+    }
+
+    /**
+     * Deshace el último cambio de la lista.
+     * @param flights lista de vuelos.
+     * @return el cambio aplicado para deshacerlo, o {@code null} si no hay cambios o ya no se puede deshacer.
+     */
+    public FlightJournal.Entry undo(List<Flight> flights) {
+        FlightJournal.Entry edit = undoStack.pollLast();
+        if (edit == null) return null;
+        FlightJournal.Entry inverse = inverse(edit);
+        if (!apply(flights, inverse)) return null;
+        redoStack.addLast(edit);
+        updateProperties();
+        return inverse;
+    }
+
+    /**
+     * Vuelve a aplicar el último cambio deshecho.
+     * @param flights lista de vuelos.
+     * @return el cambio aplicado, o {@code null} si no hay cambios o ya no se puede rehacer.
+     */
+    public FlightJournal.Entry redo(List<Flight> flights) {
+        FlightJournal.Entry edit = redoStack.pollLast();
+        if (edit == null) return null;
+        if (!apply(flights, edit)) return null;
+        undoStack.addLast(edit);
+        updateProperties();
+        return edit;
+    }
+
+    /**
+     * Vacía el historial.
+     */
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+        memory = 0;
+        updateProperties();
+    }
+
+    /**
+     * Indica si hay algún cambio que deshacer.
+     * @return la propiedad, para enlazarla por ejemplo con el botón "Undo".
+     */
+    public ReadOnlyBooleanProperty canUndoProperty() {
+        return canUndo.getReadOnlyProperty();
+    }
+
+    /**
+     * Indica si hay algún cambio deshecho que rehacer.
+     * @return la propiedad, para enlazarla por ejemplo con el botón "Redo".
+     */
+    public ReadOnlyBooleanProperty canRedoProperty() {
+        return canRedo.getReadOnlyProperty();
+    }
+
+    /**
+     * Aplica un cambio a la lista y lo registra en el diario. Si el vuelo afectado ya no está en la lista,
+     * no aplica nada y vacía el historial.
+     */
+    private boolean apply(List<Flight> flights, FlightJournal.Entry edit) {
+        switch (edit.operation()) {
+            case ADD -> flights.add(edit.flight());
+            case DELETE -> {
+                if (!flights.remove(edit.flight())) {
+                    clear();
+                    return false;
+                }
+            }
+            case UPDATE -> {
+                int index = flights.indexOf(edit.flight());
+                if (index < 0) {
+                    clear();
+                    return false;
+                }
+                flights.set(index, edit.newFlight());
+            }
+        }
+        journal.record(edit);
+        return true;
+    }
+
+    /**
+     * Obtiene la operación que deshace un cambio.
+     */
+    private static FlightJournal.Entry inverse(FlightJournal.Entry edit) {
+        return switch (edit.operation()) {
+            case ADD -> new FlightJournal.Entry(FlightJournal.Operation.DELETE, edit.flight(), null);
+            case DELETE -> new FlightJournal.Entry(FlightJournal.Operation.ADD, edit.flight(), null);
+            case UPDATE -> new FlightJournal.Entry(FlightJournal.Operation.UPDATE, edit.newFlight(), edit.flight());
+        };
+    }
+
+    private static long sizeOf(FlightJournal.Entry edit) {
+        return ENTRY_BYTES + (edit.newFlight() != null ? 2 : 1) * FLIGHT_BYTES;
+    }
+
+    private void updateProperties() {
+        canUndo.set(!undoStack.isEmpty());
+        canRedo.set(!redoStack.isEmpty());
+    }
+}
@@ -0,0 +1,276 @@
+package com.milacanete.flightsfx.utils;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FileUtils;
+import com.milacanete.flightsfx.persistence.FlightJournal;
+import com.milacanete.flightsfx.persistence.FlightParser;
+import com.milacanete.flightsfx.persistence.FlightsWriter;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Vigila el archivo "flights.txt" para incorporar los cambios que hacen otras aplicaciones mientras está abierta.
+ * <p> Utiliza un {@link WatchService} sobre el directorio del archivo y, en cada cambio, lo compara con el último
+ * estado conocido: el tamaño y los últimos bytes hasta ese tamaño. </p>
+ * <ul>
+ *     <li>Si el archivo creció y los bytes conocidos no cambiaron, se han añadido líneas al final: solo se leen
+ *     los bytes nuevos y los vuelos se agregan a la lista por lotes, en el hilo de JavaFX.</li>
+ *     <li>En cualquier otro caso el archivo se reescribió: se vuelve a leer completo en segundo plano,
+ *     se aplica el diario {@link FlightJournal} y se sustituye la lista con un único cambio, siempre que no haya
+ *     cambiado entre tanto.</li>
+ * </ul>
+ * <p> Las escrituras de la propia aplicación se registran en {@link FileUtils#setTextWriteListener(FileUtils.TextWriteListener)},
+ * de modo que no se confunden con cambios externos. La lectura se hace en el hilo "flights-watcher". </p>
+ */
+public class FlightsFileWatcher implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(FlightsFileWatcher.class.getName());
+
+    /**
+     * Número de bytes del final de la parte conocida que se comparan para detectar reescrituras.
+     */
+    private static final int TAIL_SIZE = 64;
+
+    /**
+     * Número máximo de bytes nuevos que se leen de una vez.
+     */
+    private static final int MAX_READ_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Número de vuelos que se envían a la interfaz en cada lote.
+     */
+    private static final int BATCH_SIZE = 10_000;
+
+    /**
+     * Estado del archivo: tamaño y últimos bytes hasta ese tamaño.
+     */
+    private record FileState(long size, byte[] tail) {
+
+        static FileState read(FileChannel channel, long size) throws IOException {
+            int length = (int) Math.min(TAIL_SIZE, size);
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            readFully(channel, buffer, size - length);
+            return new FileState(size, buffer.array());
+        }
+
+        boolean matches(FileChannel channel) throws IOException {
+            return channel.size() >= size && Arrays.equals(tail, read(channel, size).tail);
+        }
+    }
+
+    // Último estado de flights.txt escrito por la aplicación, desde el hilo de escritura
+    private static volatile FileState lastWrite;
+
+    private final Path file;
+    private final ObservableList<Flight> target;
+    private final WatchService watchService;
+
+    // Solo desde el hilo del vigilante
+    private FileState known;
+    private FileState appliedWrite;
+
+    private FlightsFileWatcher(Path file, ObservableList<Flight> target, long loadedBytes) throws IOException {
+        this.file = file;
+        this.target = target;
+        this.watchService = file.getFileSystem().newWatchService();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.known = FileState.read(channel, Math.min(loadedBytes, channel.size()));
+        }
+        file.toAbsolutePath().getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Empieza a vigilar el archivo flights.txt.
+     * @param target lista de vuelos cargada del archivo, solo se modifica desde el hilo de JavaFX.
+     * @param loadedBytes número de bytes del archivo que ya se cargaron en la lista.
+     * @return el vigilante, que se debe cerrar con {@link #close()}.
+     * @throws IOException si ocurre un error al abrir el archivo o registrar el directorio.
+     */
+    public static FlightsFileWatcher start(ObservableList<Flight> target, long loadedBytes) throws IOException {
+        FlightsFileWatcher watcher = new FlightsFileWatcher(FileUtils.getFlightsFile(), target, loadedBytes);
+        FileUtils.setTextWriteListener(FlightsFileWatcher::fileWritten);
+        Thread thread = new Thread(watcher::run, "flights-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    /**
+     * Registra una escritura de la propia aplicación, para no tratarla como un cambio externo.
+     * {@link FileUtils} la llama antes de reemplazar el archivo, para que el vigilante ya la conozca cuando detecte el cambio.
+     * @param path archivo que se va a reemplazar.
+     * @param tempPath archivo temporal con el contenido nuevo.
+     * @param size tamaño del contenido nuevo.
+     */
+    private static void fileWritten(Path path, Path tempPath, long size) {
+        if (!path.equals(FileUtils.getFlightsFile())) return;
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.READ)) {
+            lastWrite = FileState.read(channel, size);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "No se pudo registrar la escritura de " + path.getFileName(), ex);
+        }
+    }
+
+    /**
+     * Espera cambios en el directorio y comprueba el archivo cada vez que cambia, hasta que se cierra el vigilante.
+     */
+    private void run() {
+        try {
+            check(); //el archivo pudo cambiar entre la carga y el inicio del vigilante
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (changed) check();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException ex) {
+            //el vigilante se cerró
+        }
+    }
+
+    /**
+     * Compara el archivo con el último estado conocido y aplica los cambios.
+     */
+    private void check() {
+        FlightsWriter.flush(); //una escritura en curso de la aplicación todavía no estaría registrada
+        if (!Files.exists(file)) return;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            FileState write = lastWrite;
+            if (write != null && write != appliedWrite && write.matches(channel)) {
+                appliedWrite = write;
+                known = write; //el archivo lo escribió la aplicación con la lista actual
+            }
+
+            if (!known.matches(channel)) {
+                resync();
+            } else if (channel.size() > known.size()) {
+                readAppended(channel, channel.size());
+            }
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Error al leer los cambios de " + file.getFileName(), ex);
+        }
+    }
+
+    /**
+     * Lee las líneas completas añadidas al final del archivo y las agrega a la lista por lotes.
+     * Una última línea sin salto de línea se deja para la siguiente comprobación, ya que puede estar a medias.
+     */
+    private void readAppended(FileChannel channel, long size) throws IOException {
+        long count = 0;
+        while (known.size() < size) {
+            long from = known.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - from, MAX_READ_SIZE));
+            readFully(channel, buffer, from);
+            int end = buffer.limit();
+            while (end > 0 && !FlightParser.isLineEnd(buffer.get(end - 1))) end--;
+            if (end == 0) break; //no hay ninguna línea completa
+
+            FlightParser.ChunkResult result = FlightParser.parseLines(buffer, 0, end);
+            FlightParser.logDiscarded(result.discarded());
+            known = FileState.read(channel, from + end);
+            publish(result.flights());
+            count += result.flights().size();
+        }
+        if (count > 0) logger.log(Level.INFO, "Vuelos añadidos externamente a flights.txt: {0}", count);
+    }
+
+    /**
+     * Agrega los vuelos a la lista en el hilo de JavaFX, por lotes.
+     */
+    private void publish(List<Flight> flights) {
+        for (int from = 0; from < flights.size(); from += BATCH_SIZE) {
+            List<Flight> batch = flights.subList(from, Math.min(from + BATCH_SIZE, flights.size()));
+            Platform.runLater(() -> target.addAll(batch));
+        }
+    }
+
+    /**
+     * Vuelve a leer el archivo completo, le aplica el diario y sustituye la lista en el hilo de JavaFX
+     * con un único cambio. Todo el trabajo se hace en este hilo; el de JavaFX solo publica el resultado.
+     * <p> Antes de leer se anota el último registro solicitado al diario y se esperan las escrituras pendientes,
+     * así el archivo y el diario leídos incluyen todos los cambios de la lista hasta ese registro.
+     * Si al publicar la lista ha cambiado desde entonces, el resultado ya no sirve y se vuelve a leer. </p>
+     */
+    private void resync() throws IOException {
+        while (true) {
+            long sequence = onFxThread(FlightJournal::getLastSequence);
+            FlightsWriter.flush(); //una compactación pudo reemplazar el archivo y vaciar el diario
+            List<Flight> flights;
+            FileState state;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                flights = new ArrayList<>(FlightParser.parseAll(channel));
+                state = FileState.read(channel, size);
+            }
+            FlightJournal.apply(flights, FlightJournal.readEntries());
+
+            boolean published = onFxThread(() -> {
+                if (FlightJournal.getLastSequence() != sequence) return false;
+                target.setAll(flights);
+                return true;
+            });
+            if (published) {
+                known = state;
+                logger.log(Level.INFO, "flights.txt se reescribió externamente, vuelos leídos: {0}", flights.size());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una acción en el hilo de JavaFX y espera su resultado.
+     */
+    private static <T> T onFxThread(Supplier<T> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(action.get());
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result.join();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) break;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Deja de vigilar el archivo.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Error al cerrar el vigilante de " + file.getFileName(), ex);
+        }
+    }
+}
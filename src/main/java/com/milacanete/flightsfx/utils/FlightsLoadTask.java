@@ -0,0 +1,103 @@
+package com.milacanete.flightsfx.utils;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.FileUtils;
+import com.milacanete.flightsfx.persistence.FlightJournal;
+import com.milacanete.flightsfx.persistence.FlightsWriter;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tarea en segundo plano que carga los vuelos del archivo "flights.txt" sin bloquear
+ * el hilo de la interfaz (JavaFX Application Thread).
+ * <p> Los vuelos se leen por lotes mediante {@link FileUtils#readFlights} y cada lote se agrega
+ * a la lista de destino en el hilo de JavaFX, de modo que la tabla se va llenando progresivamente
+ * mientras el usuario sigue interactuando con la aplicación. </p>
+ * <p> Al terminar de leer el archivo se aplican los cambios pendientes del diario {@link FlightJournal}
+ * en este mismo hilo, sobre una lista normal con los vuelos leídos, y el resultado reemplaza la lista de destino
+ * de una vez, en lugar de modificarla registro a registro en el hilo de JavaFX. </p>
+ * <p> El progreso de la tarea se expresa en bytes leídos sobre el tamaño total del archivo
+ * y la carga puede cancelarse en cualquier momento con {@link #cancel()}. </p>
+ */
+public class FlightsLoadTask extends Task<Long> {
+
+    /**
+     * Número de vuelos que se envían a la interfaz en cada lote.
+     */
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ObservableList<Flight> target;
+
+    private volatile int journalEntries;
+
+    private volatile long bytesRead;
+
+    /**
+     * Crea la tarea de carga.
+     * @param target lista vacía donde se agregan los vuelos leídos, solo se modifica desde el hilo de JavaFX
+     * y no debe cambiar por otros motivos durante la carga.
+     */
+    public FlightsLoadTask(ObservableList<Flight> target) {
+        this.target = target;
+    }
+
+    /**
+     * Lee el archivo por lotes y publica cada lote en el hilo de JavaFX.
+     * @return el número de vuelos leídos.
+     * @throws Exception si ocurre un error al leer el archivo.
+     */
+    @Override
+    protected Long call() throws Exception {
+        FlightsWriter.flush(); //una compactación en curso podría estar reescribiendo el archivo
+        long totalBytes = FileUtils.getFlightsFileSize();
+        //el diario no cambia durante la carga, ya que no se permiten modificaciones hasta que termine
+        List<FlightJournal.Entry> entries = FlightJournal.readEntries();
+        //si hay registros, se guarda también una lista normal con los vuelos publicados para aplicarlos sobre ella
+        List<Flight> loaded = entries.isEmpty() ? null : new ArrayList<>();
+        updateMessage("Cargando vuelos...");
+        long count = FileUtils.readFlights(BATCH_SIZE,
+                batch -> {
+                    if (loaded != null) loaded.addAll(batch);
+                    Platform.runLater(() -> {
+                        if (!isCancelled()) target.addAll(batch);
+                    });
+                },
+                bytesRead -> {
+                    this.bytesRead = bytesRead;
+                    long done = Math.min(bytesRead, totalBytes); //los bytes leídos son aproximados
+                    updateProgress(done, totalBytes);
+                    updateMessage(String.format("Cargando vuelos... %d%%", totalBytes == 0 ? 100 : done * 100 / totalBytes));
+                },
+                this::isCancelled);
+
+        if (loaded != null && !isCancelled()) {
+            //los registros se aplican fuera del hilo de JavaFX y el resultado se publica con un único cambio
+            updateMessage("Aplicando el diario de cambios...");
+            FlightJournal.apply(loaded, entries);
+            journalEntries = entries.size();
+            Platform.runLater(() -> {
+                if (!isCancelled()) target.setAll(loaded);
+            });
+        }
+        return count;
+    }
+
+    /**
+     * Obtiene el número de registros del diario aplicados al terminar la carga.
+     * @return el número de registros aplicados.
+     */
+    public int getJournalEntries() {
+        return journalEntries;
+    }
+
+    /**
+     * Obtiene el número de bytes del archivo leídos, es decir, la parte del archivo que ya está en la lista.
+     * @return el número de bytes leídos.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+}
@@ -0,0 +1,106 @@
+package com.milacanete.flightsfx.utils;
+
+import com.milacanete.flightsfx.diagnostics.FlightEvents;
+import com.milacanete.flightsfx.diagnostics.Metrics;
+import javafx.application.Platform;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Detecta bloqueos del hilo de JavaFX (JavaFX Application Thread), que congelan la interfaz.
+ * <p> Un hilo de vigilancia envía cada 100 ms una tarea vacía al hilo de JavaFX con {@link Platform#runLater}.
+ * Si la tarea tarda en ejecutarse más que el umbral, el hilo de JavaFX está ocupado: se captura su pila,
+ * que indica qué operación lo bloquea. Cuando el hilo de JavaFX se libera se registra un aviso con la duración
+ * del bloqueo y la pila, un evento {@link FlightEvents.FxStall} y la métrica "ui.stalls".
+ * Solo hay una tarea pendiente a la vez, por lo que un bloqueo largo se registra una sola vez. </p>
+ * <p> El umbral es de 500 ms y se puede cambiar con {@code -Dflightsfx.stall.threshold=milisegundos}. </p>
+ */
+public final class FxStallDetector {
+
+    private static final Logger logger = Logger.getLogger(FxStallDetector.class.getName());
+
+    private static final long CHECK_INTERVAL_MILLIS = 100;
+
+    /**
+     * Número máximo de líneas de la pila que se registran.
+     */
+    private static final int MAX_STACK_DEPTH = 40;
+
+    private final long thresholdMillis;
+
+    // Hilo de JavaFX, se obtiene en la primera tarea
+    private volatile Thread fxThread;
+
+    private FxStallDetector(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * Empieza a vigilar el hilo de JavaFX. Se debe llamar una sola vez, al iniciar la aplicación.
+     */
+    public static void start() {
+        FxStallDetector detector = new FxStallDetector(Long.getLong("flightsfx.stall.threshold", 500));
+        Thread thread = new Thread(detector::run, "flights-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Envía una tarea al hilo de JavaFX y espera a que se ejecute. Si supera el umbral, captura la pila
+     * del hilo de JavaFX y registra el bloqueo cuando termina.
+     */
+    private void run() {
+        try {
+            while (true) {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+                long posted = System.nanoTime();
+                CountDownLatch executed = new CountDownLatch(1);
+                Platform.runLater(() -> {
+                    fxThread = Thread.currentThread();
+                    executed.countDown();
+                });
+                if (!executed.await(thresholdMillis, TimeUnit.MILLISECONDS)) {
+                    String stack = captureStack();
+                    executed.await();
+                    report((System.nanoTime() - posted) / 1_000_000, stack);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registra un bloqueo del hilo de JavaFX.
+     * @param blockedMillis duración del bloqueo.
+     * @param stack pila del hilo de JavaFX al superar el umbral.
+     */
+    private void report(long blockedMillis, String stack) {
+        Metrics.counter("ui.stalls").add(1);
+        logger.log(Level.WARNING, "El hilo de JavaFX estuvo bloqueado {0} ms en:\n{1}", new Object[]{blockedMillis, stack});
+
+        FlightEvents.FxStall event = new FlightEvents.FxStall();
+        if (event.shouldCommit()) {
+            event.blockedMillis = blockedMillis;
+            event.fxThreadStack = stack;
+            event.commit();
+        }
+    }
+
+    /**
+     * Obtiene la pila actual del hilo de JavaFX.
+     */
+    private String captureStack() {
+        Thread thread = fxThread;
+        if (thread == null) return "(hilo de JavaFX desconocido)";
+        StringBuilder stack = new StringBuilder();
+        StackTraceElement[] frames = thread.getStackTrace();
+        for (int i = 0; i < Math.min(frames.length, MAX_STACK_DEPTH); i++) {
+            stack.append("\tat ").append(frames[i]).append('\n');
+        }
+        if (frames.length > MAX_STACK_DEPTH) stack.append("\t...\n");
+        return stack.toString();
+    }
+}
@@ -1,6 +1,9 @@
 /**
  * Módulo principal de la aplicación FlightsFX que gestiona vuelos
  * y su visualización utilizando JavaFX.
+ * <p> Los paquetes {@code model}, {@code persistence}, {@code query}, {@code analytics} y {@code diagnostics}
+ * no dependen de JavaFX, por lo que el modo por lotes ({@code FlightsBatch}) se puede ejecutar sin JavaFX
+ * en el classpath. La interfaz está en el paquete principal, {@code repository} y {@code utils}. </p>
  */
 module com.milacanete.flightsfx {
     requires javafx.controls;
@@ -8,10 +11,16 @@ module com.milacanete.flightsfx {
 
     requires org.controlsfx.controls;
     requires java.logging;
+    requires jdk.jfr;
 
     opens com.milacanete.flightsfx to javafx.fxml;
     exports com.milacanete.flightsfx;
+    exports com.milacanete.flightsfx.analytics;
+    exports com.milacanete.flightsfx.diagnostics;
     exports com.milacanete.flightsfx.model;
+    exports com.milacanete.flightsfx.persistence;
+    exports com.milacanete.flightsfx.query;
+    exports com.milacanete.flightsfx.repository;
     exports com.milacanete.flightsfx.utils;
 
 
@@ -0,0 +1,114 @@
+package com.milacanete.flightsfx.analytics;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.ColumnarFlightStore;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba {@link FlightAnalytics} y {@link DurationHistogram} contra cálculos directos sobre las duraciones,
+ * con histogramas que se quedan sin agrupar, otros que crean sus contadores y combinaciones de ambos.
+ */
+class FlightAnalyticsTest {
+
+    @Test
+    void histogramMatchesSortedDurations() {
+        Random random = new Random(3);
+        for (int size : new int[] {0, 1, 7, DurationHistogram.BUCKETS - 1, DurationHistogram.BUCKETS, 10_000}) {
+            int[] durations = random.ints(size, 0, DurationHistogram.BUCKETS).toArray();
+            DurationHistogram histogram = new DurationHistogram();
+            Arrays.stream(durations).forEach(histogram::add);
+
+            assertHistogram(durations, histogram);
+        }
+    }
+
+    @Test
+    void mergeCombinesSparseAndDenseHistograms() {
+        Random random = new Random(5);
+        int[] sizes = {3, 2_000, 0, 50, DurationHistogram.BUCKETS};
+        List<Integer> all = new ArrayList<>();
+        DurationHistogram merged = new DurationHistogram();
+        for (int size : sizes) {
+            DurationHistogram part = new DurationHistogram();
+            random.ints(size, 0, 600).forEach(minutes -> {
+                part.add(minutes);
+                all.add(minutes);
+            });
+            merged.merge(part);
+        }
+
+        assertHistogram(all.stream().mapToInt(Integer::intValue).toArray(), merged);
+    }
+
+    @Test
+    void mergeWithItselfDoublesTheCounts() {
+        for (int size : new int[] {5, DurationHistogram.BUCKETS - 1, DurationHistogram.BUCKETS + 1}) {
+            int[] durations = new Random(size).ints(size, 0, DurationHistogram.BUCKETS).toArray();
+            DurationHistogram histogram = new DurationHistogram();
+            Arrays.stream(durations).forEach(histogram::add);
+
+            histogram.merge(histogram);
+
+            int[] doubled = new int[size * 2];
+            System.arraycopy(durations, 0, doubled, 0, size);
+            System.arraycopy(durations, 0, doubled, size, size);
+            assertHistogram(doubled, histogram);
+        }
+    }
+
+    @Test
+    void analyzeStoreMatchesAnalyzeList() {
+        Random random = new Random(9);
+        String[] destinations = {"Madrid", "Paris", "Roma", "Lisboa"};
+        List<Flight> flights = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            flights.add(new Flight("IB60" + random.nextInt(10) + "N", destinations[random.nextInt(destinations.length)],
+                    LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(random.nextInt(365 * 24 * 60)),
+                    LocalTime.ofSecondOfDay(60L * random.nextInt(DurationHistogram.BUCKETS))));
+        }
+
+        FlightAnalytics.Report fromList = FlightAnalytics.analyze(flights);
+        FlightAnalytics.Report fromStore = FlightAnalytics.analyze(ColumnarFlightStore.of(flights));
+
+        assertEquals(flights.size(), fromList.overall().getCount());
+        assertSameHistogram(fromList.overall(), fromStore.overall());
+        assertEquals(fromList.byDestination().keySet(), fromStore.byDestination().keySet());
+        fromList.byDestination().forEach((key, histogram) -> assertSameHistogram(histogram, fromStore.byDestination().get(key)));
+        assertEquals(fromList.byMonth().keySet(), fromStore.byMonth().keySet());
+        for (Map.Entry<YearMonth, DurationHistogram> entry : fromList.byMonth().entrySet()) {
+            assertSameHistogram(entry.getValue(), fromStore.byMonth().get(entry.getKey()));
+        }
+    }
+
+    private static void assertHistogram(int[] durations, DurationHistogram histogram) {
+        int[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted.length, histogram.getCount());
+        assertEquals(Arrays.stream(sorted).average().orElse(0), histogram.getMean(), 1e-9);
+        for (double percentile : new double[] {0, 1, 50, 90, 99, 100}) {
+            int rank = Math.max(1, (int) Math.ceil(percentile / 100 * sorted.length));
+            assertEquals(sorted.length == 0 ? 0 : sorted[rank - 1], histogram.getPercentile(percentile));
+        }
+        long[] hours = new long[24];
+        Arrays.stream(sorted).forEach(minutes -> hours[minutes / 60]++);
+        assertEquals(Arrays.toString(hours), Arrays.toString(histogram.getHourCounts()));
+    }
+
+    private static void assertSameHistogram(DurationHistogram expected, DurationHistogram actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMean(), actual.getMean(), 1e-9);
+        for (int minutes = 0; minutes < DurationHistogram.BUCKETS; minutes++) {
+            assertEquals(expected.getCount(minutes), actual.getCount(minutes));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.milacanete.flightsfx.model;
+
+import org.junit.jupiter.api.Test;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que {@link DestinationDictionary} asigna un identificador por destino sin distinguir mayúsculas
+ * de minúsculas, con independencia del idioma del sistema y al registrar destinos desde varios hilos.
+ */
+class DestinationDictionaryTest {
+
+    @Test
+    void upperCaseDoesNotDependOnTheDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            assertEquals(DestinationDictionary.idOf("Istanbul"), DestinationDictionary.idOf("ISTANBUL"));
+            assertEquals(DestinationDictionary.idOf("Istanbul"), DestinationDictionary.find("istanbul"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void parallelRegistrationKeepsIdsAndNamesConsistent() {
+        int[] ids = IntStream.range(0, 20_000).parallel()
+                .map(i -> DestinationDictionary.idOf("Destino " + (i % 5_000)))
+                .toArray();
+
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i % 5_000], ids[i]);
+            assertEquals("Destino " + (i % 5_000), DestinationDictionary.getName(ids[i]));
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.milacanete.flightsfx.persistence;
+
+import com.milacanete.flightsfx.model.Flight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que la compactación del diario no pierde ni repite registros si la aplicación se cierra
+ * en cualquier paso: al escribir la copia completa, tras apartar el diario, tras reemplazar el archivo
+ * de vuelos o si un reemplazo falla y se vuelve a compactar.
+ * <p> Cada prueba deja los archivos como quedarían tras el cierre y después carga los vuelos como al iniciar
+ * la aplicación: lee "flights.txt" y le aplica {@link FlightJournal#readEntries()}. </p>
+ */
+class FlightJournalTest {
+
+    private static final Flight OLD = flight("IB601N", "Madrid", 10);
+    private static final Flight ADDED = flight("VY200A", "Paris", 11);
+    private static final Flight ADDED_LATER = flight("UX300B", "Roma", 12);
+
+    @TempDir
+    Path dir;
+
+    private String userDir;
+
+    @BeforeEach
+    void useTempDir() {
+        userDir = System.getProperty("user.dir");
+        System.setProperty("user.dir", dir.toString());
+    }
+
+    @AfterEach
+    void restoreUserDir() {
+        System.setProperty("user.dir", userDir);
+    }
+
+    @Test
+    void journalIsAppliedOverTheFlightsFile() throws IOException {
+        writeFlights("flights.txt", OLD);
+        writeJournal(ADDED);
+
+        assertEquals(List.of(OLD, ADDED), load());
+    }
+
+    @Test
+    void crashWhileWritingTheCopyKeepsTheJournal() throws IOException {
+        writeFlights("flights.txt", OLD);
+        writeJournal(ADDED);
+        Files.writeString(dir.resolve("flights.txt.tmp"), "IB601N;Mad"); //copia a medias
+
+        assertEquals(List.of(OLD, ADDED), load());
+    }
+
+    @Test
+    void crashAfterSettingAsideAppliesTheSetAsideJournal() throws IOException {
+        writeFlights("flights.txt", OLD);
+        writeJournal(ADDED);
+        writeFlights("flights.txt.tmp", OLD, ADDED);
+
+        FlightJournal.setAsideJournal();
+
+        assertFalse(Files.exists(dir.resolve("flights.journal")));
+        assertEquals(List.of(OLD, ADDED), load());
+    }
+
+    @Test
+    void crashAfterReplacingDiscardsTheSetAsideJournal() throws IOException {
+        writeFlights("flights.txt", OLD);
+        writeJournal(ADDED);
+        writeFlights("flights.txt.tmp", OLD, ADDED);
+
+        FlightJournal.setAsideJournal();
+        FileUtils.replaceFile(dir.resolve("flights.txt.tmp"), dir.resolve("flights.txt"));
+
+        assertEquals(List.of(OLD, ADDED), load());
+        assertEquals(List.of(), setAsideFiles());
+    }
+
+    @Test
+    void failedReplaceKeepsBothSetAsideJournalsInOrder() throws IOException {
+        writeFlights("flights.txt", OLD);
+        writeJournal(ADDED);
+        writeFlights("flights.txt.tmp", OLD, ADDED);
+        FlightJournal.setAsideJournal(); //el reemplazo falla y el archivo temporal se queda
+
+        writeJournal(ADDED_LATER);
+        writeFlights("flights.txt.tmp", OLD, ADDED, ADDED_LATER);
+        FlightJournal.setAsideJournal();
+
+        assertEquals(List.of("flights.journal.compacting.1", "flights.journal.compacting.2"), setAsideFiles());
+        assertEquals(List.of(OLD, ADDED, ADDED_LATER), load());
+
+        FileUtils.replaceFile(dir.resolve("flights.txt.tmp"), dir.resolve("flights.txt"));
+        assertEquals(List.of(OLD, ADDED, ADDED_LATER), load());
+    }
+
+    @Test
+    void crashWhileDiscardingIsCompletedOnTheNextLoad() throws IOException {
+        writeFlights("flights.txt", OLD, ADDED, ADDED_LATER);
+        writeFlights("flights.journal.compacting.1", ADDED);
+        writeFlights("flights.journal.compacting.2", ADDED_LATER);
+        Files.delete(dir.resolve("flights.journal.compacting.1")); //solo se eliminó el primero
+
+        assertEquals(List.of(OLD, ADDED, ADDED_LATER), load());
+        assertEquals(List.of(), setAsideFiles());
+    }
+
+    @Test
+    void compactWritesTheFlightsAndEmptiesTheJournal() throws IOException {
+        writeFlights("flights.txt", OLD);
+        writeJournal(ADDED);
+
+        new FlightJournal().compact(List.of(OLD, ADDED));
+        FlightsWriter.flush();
+
+        assertEquals(List.of(OLD, ADDED), FileUtils.importFlights(dir.resolve("flights.txt")));
+        assertFalse(Files.exists(dir.resolve("flights.journal")));
+        assertFalse(Files.exists(dir.resolve("flights.txt.tmp")));
+        assertEquals(List.of(), setAsideFiles());
+        assertTrue(FlightJournal.readEntries().isEmpty());
+    }
+
+    @Test
+    void applyMatchesApplyingEachEntryToTheList() {
+        Random random = new Random(11);
+        List<Flight> flights = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            flights.add(randomFlight(random));
+        }
+        List<FlightJournal.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            //muchos vuelos repetidos, para comprobar que se elimina o actualiza siempre el primero
+            Flight flight = random.nextBoolean() ? flights.get(random.nextInt(flights.size())) : randomFlight(random);
+            entries.add(switch (random.nextInt(3)) {
+                case 0 -> new FlightJournal.Entry(FlightJournal.Operation.ADD, flight, null);
+                case 1 -> new FlightJournal.Entry(FlightJournal.Operation.DELETE, flight, null);
+                default -> new FlightJournal.Entry(FlightJournal.Operation.UPDATE, flight, randomFlight(random));
+            });
+        }
+        ColumnarFlightStore store = ColumnarFlightStore.of(flights);
+        List<Flight> list = new ArrayList<>(flights);
+
+        applyOneByOne(flights, entries);
+        FlightJournal.apply(list, entries);
+        FlightJournal.apply(store, entries);
+
+        assertEquals(flights, list);
+        assertEquals(flights, store.asList());
+    }
+
+    @Test
+    void pagedStoreReadsTheTextFileAndJournalInsteadOfAStaleBinaryFile() throws IOException {
+        writeFlights("flights.txt", OLD);
+        BinaryFlightStore.write(dir.resolve("flights.bin"), List.of(ADDED_LATER));
+        writeJournal(ADDED);
+
+        assertEquals(List.of(OLD, ADDED), FileUtils.openPagedStore().asList());
+    }
+
+    private static Flight flight(String number, String destination, int hour) {
+        return new Flight(number, destination, LocalDateTime.of(2025, 1, 1, hour, 0), LocalTime.of(1, 30));
+    }
+
+    /**
+     * Aplica los registros uno a uno con las operaciones de la lista, como referencia de {@link FlightJournal#apply}.
+     */
+    private static void applyOneByOne(List<Flight> flights, List<FlightJournal.Entry> entries) {
+        for (FlightJournal.Entry entry : entries) {
+            switch (entry.operation()) {
+                case ADD -> flights.add(entry.flight());
+                case DELETE -> flights.remove(entry.flight());
+                case UPDATE -> {
+                    int index = flights.indexOf(entry.flight());
+                    if (index >= 0) flights.set(index, entry.newFlight());
+                }
+            }
+        }
+    }
+
+    private static Flight randomFlight(Random random) {
+        return new Flight("IB60" + random.nextInt(3) + "N", random.nextBoolean() ? "Madrid" : "Paris",
+                LocalDateTime.of(2025, 1, 1, 10, 0).plusMinutes(random.nextInt(20)), LocalTime.of(random.nextInt(3), 0));
+    }
+
+    /**
+     * Carga los vuelos como al iniciar la aplicación.
+     */
+    private List<Flight> load() throws IOException {
+        List<Flight> flights = new ArrayList<>(FileUtils.importFlights(dir.resolve("flights.txt")));
+        FlightJournal.apply(flights, FlightJournal.readEntries());
+        return flights;
+    }
+
+    private void writeFlights(String fileName, Flight... flights) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Flight flight : flights) {
+            lines.add(fileName.startsWith("flights.journal") ? "ADD;" + FlightParser.format(flight) : FlightParser.format(flight));
+        }
+        Files.write(dir.resolve(fileName), lines, StandardCharsets.UTF_8);
+    }
+
+    private void writeJournal(Flight... added) throws IOException {
+        writeFlights("flights.journal", added);
+    }
+
+    private List<String> setAsideFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith("flights.journal.compacting"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.milacanete.flightsfx.query;
+
+import com.milacanete.flightsfx.model.Flight;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba el barrido de {@link ScheduleConflicts} contra una comparación de todas las parejas de vuelos,
+ * con los casos límite del intervalo [salida, salida + duración): un vuelo que sale justo cuando llega otro,
+ * vuelos de duración cero que salen a la vez y números que solo se diferencian en mayúsculas y minúsculas.
+ */
+class ScheduleConflictsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void flightDepartingWhenAnotherArrivesIsNotAConflict() {
+        Flight first = flight("IB601N", 10, 0, 90);
+        Flight second = flight("IB601N", 11, 30, 60);
+
+        assertEquals(List.of(), ScheduleConflicts.findAll(List.of(first, second)));
+    }
+
+    @Test
+    void zeroDurationFlightsDepartingTogetherAreAConflict() {
+        Flight first = flight("IB601N", 10, 0, 0);
+        Flight second = flight("IB601N", 10, 0, 0);
+        Flight later = flight("IB601N", 10, 1, 0);
+
+        List<ScheduleConflicts.Conflict> conflicts = ScheduleConflicts.findAll(List.of(first, second, later));
+
+        assertEquals(1, conflicts.size());
+        assertTrue(conflicts.get(0).first() == first && conflicts.get(0).second() == second);
+    }
+
+    @Test
+    void zeroDurationFlightInsideAnotherIsAConflict() {
+        Flight longFlight = flight("IB601N", 10, 0, 120);
+        Flight instant = flight("IB601N", 11, 0, 0);
+        Flight atArrival = flight("IB601N", 12, 0, 0);
+
+        assertEquals(List.of(new ScheduleConflicts.Conflict(longFlight, instant)),
+                ScheduleConflicts.findAll(List.of(atArrival, instant, longFlight)));
+    }
+
+    @Test
+    void flightNumbersAreComparedIgnoringCase() {
+        Flight upper = flight("IB601N", 10, 0, 90);
+        Flight lower = flight("ib601n", 10, 30, 90);
+        Flight other = flight("IB601M", 10, 30, 90);
+
+        assertEquals(List.of(new ScheduleConflicts.Conflict(upper, lower)),
+                ScheduleConflicts.findAll(List.of(upper, lower, other)));
+    }
+
+    @Test
+    void sweepRejectsFlightsOutOfOrder() {
+        ScheduleConflicts.Sweep sweep = new ScheduleConflicts.Sweep();
+        sweep.add(flight("IB601N", 11, 0, 60), _ -> {});
+
+        assertThrows(IllegalArgumentException.class, () -> sweep.add(flight("IB601N", 10, 0, 60), _ -> {}));
+    }
+
+    @Test
+    void findAllMatchesPairwiseScan() {
+        List<Flight> flights = randomFlights(20_000, 42);
+
+        assertEquals(pairwise(flights), pairs(flights, ScheduleConflicts.findAll(flights)));
+    }
+
+    @Test
+    void sweepMatchesPairwiseScan() {
+        List<Flight> flights = randomFlights(20_000, 7);
+        flights.sort(Comparator.comparing(Flight::getDepartureTime));
+        List<ScheduleConflicts.Conflict> conflicts = new ArrayList<>();
+        ScheduleConflicts.Sweep sweep = new ScheduleConflicts.Sweep();
+        for (Flight flight : flights) {
+            sweep.add(flight, conflicts::add);
+        }
+
+        assertEquals(pairwise(flights), pairs(flights, conflicts));
+    }
+
+    private static Flight flight(String number, int hour, int minute, int durationMinutes) {
+        return new Flight(number, "Madrid", START.withHour(hour).withMinute(minute),
+                LocalTime.ofSecondOfDay(durationMinutes * 60L));
+    }
+
+    /**
+     * Genera vuelos con pocos números distintos, escritos con mayúsculas o minúsculas, salidas en múltiplos
+     * de 15 minutos y duraciones de 0 a 3 horas en múltiplos de 15 minutos, de modo que abundan las salidas
+     * repetidas, las llegadas que coinciden con otra salida y los vuelos de duración cero.
+     */
+    private static List<Flight> randomFlights(int count, long seed) {
+        Random random = new Random(seed);
+        List<Flight> flights = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String number = String.format("IB%03dN", random.nextInt(200));
+            if (random.nextBoolean()) number = number.toLowerCase(Locale.ROOT);
+            LocalDateTime departure = START.plusMinutes(15L * random.nextInt(30 * 24 * 4));
+            LocalTime duration = LocalTime.ofSecondOfDay(15L * 60 * random.nextInt(13));
+            flights.add(new Flight(number, "Madrid", departure, duration));
+        }
+        return flights;
+    }
+
+    /**
+     * Encuentra los conflictos comparando todas las parejas de vuelos, sin usar {@link ScheduleConflicts}.
+     * @return cada conflicto como la pareja de posiciones de los vuelos en la lista, la menor primero.
+     */
+    private static Set<List<Integer>> pairwise(List<Flight> flights) {
+        int n = flights.size();
+        String[] numbers = new String[n];
+        long[] departures = new long[n];
+        long[] arrivals = new long[n];
+        for (int i = 0; i < n; i++) {
+            Flight flight = flights.get(i);
+            numbers[i] = flight.getFlightNumber().toUpperCase(Locale.ROOT).intern();
+            departures[i] = java.time.Duration.between(START, flight.getDepartureTime()).toMinutes();
+            arrivals[i] = departures[i] + flight.getDuration().toSecondOfDay() / 60;
+        }
+
+        Set<List<Integer>> conflicts = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (numbers[i] != numbers[j]) continue;
+                boolean sameDeparture = departures[i] == departures[j];
+                boolean overlap = departures[i] < arrivals[j] && departures[j] < arrivals[i];
+                if (sameDeparture || overlap) conflicts.add(List.of(i, j));
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Convierte los conflictos en parejas de posiciones, comprobando que no se repite ninguno.
+     */
+    private static Set<List<Integer>> pairs(List<Flight> flights, List<ScheduleConflicts.Conflict> conflicts) {
+        Map<Flight, Integer> positions = new IdentityHashMap<>();
+        for (int i = 0; i < flights.size(); i++) {
+            positions.put(flights.get(i), i);
+        }
+        Set<List<Integer>> pairs = new HashSet<>();
+        for (ScheduleConflicts.Conflict conflict : conflicts) {
+            int first = positions.get(conflict.first());
+            int second = positions.get(conflict.second());
+            assertTrue(pairs.add(List.of(Math.min(first, second), Math.max(first, second))),
+                    () -> "Conflicto repetido: " + conflict);
+        }
+        return pairs;
+    }
+}
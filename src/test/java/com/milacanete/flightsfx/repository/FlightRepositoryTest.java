@@ -0,0 +1,51 @@
+package com.milacanete.flightsfx.repository;
+
+import com.milacanete.flightsfx.analytics.FlightAnalytics;
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.persistence.ColumnarFlightStore;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba qué vuelos ofrece el repositorio a las vistas, con la lista en memoria y con la vista paginada,
+ * en la que la lista queda vacía y los vuelos están en un almacén.
+ */
+class FlightRepositoryTest {
+
+    private static final Flight FLIGHT = new Flight("IB601N", "Madrid", LocalDateTime.of(2025, 1, 1, 10, 0), LocalTime.of(1, 30));
+
+    @Test
+    void listFlightsAreAvailable() {
+        FlightRepository repository = new FlightRepository();
+        assertFalse(repository.hasFlights());
+
+        repository.getFlights().add(FLIGHT);
+
+        assertTrue(repository.hasFlights());
+    }
+
+    @Test
+    void pagedStoreFlightsAreAvailableForAnalytics() {
+        FlightRepository repository = new FlightRepository();
+        repository.setPagedStore(ColumnarFlightStore.of(List.of(FLIGHT, FLIGHT)));
+
+        assertTrue(repository.getFlights().isEmpty());
+        assertTrue(repository.hasFlights());
+        assertEquals(2, FlightAnalytics.analyze(repository.getPagedStore()).overall().getCount());
+    }
+
+    @Test
+    void emptyPagedStoreHasNoFlights() {
+        FlightRepository repository = new FlightRepository();
+        repository.getFlights().add(FLIGHT);
+        repository.setPagedStore(new ColumnarFlightStore());
+
+        assertFalse(repository.hasFlights());
+    }
+}
@@ -0,0 +1,121 @@
+package com.milacanete.flightsfx.repository;
+
+import com.milacanete.flightsfx.model.Flight;
+import com.milacanete.flightsfx.query.FlightFilter;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que las vistas de {@link FlightRepository#filter(FlightFilter)} siguen los cambios de la lista:
+ * con candidatos limitados mantienen el orden y el límite, y sin límite tienen los mismos vuelos que recorrer
+ * la lista. También comprueba que los cambios que notifican la vista reproducen su contenido.
+ */
+class IndexedFlightViewTest {
+
+    @Test
+    void prefixViewKeepsRankAndLimit() {
+        FlightRepository repository = new FlightRepository();
+        repository.getFlights().addAll(flight("IB300", "Madrid"), flight("IB100", "Madrid"), flight("IB500", "Madrid"));
+        ObservableList<Flight> view = repository.filter(FlightFilter.flightNumberPrefix("ib", 2));
+        List<Flight> mirror = mirror(view);
+        assertEquals(List.of("IB100", "IB300"), numbers(view));
+
+        repository.getFlights().add(flight("ib200", "Madrid"));
+        assertEquals(List.of("IB100", "ib200"), numbers(view));
+
+        repository.getFlights().add(flight("IB900", "Madrid"));
+        assertEquals(List.of("IB100", "ib200"), numbers(view));
+
+        repository.getFlights().remove(flight("IB100", "Madrid"));
+        assertEquals(List.of("ib200"), numbers(view));
+        assertEquals(view, mirror);
+    }
+
+    @Test
+    void destinationViewKeepsRankAndLimit() {
+        FlightRepository repository = new FlightRepository();
+        repository.getFlights().addAll(flight("IB1", "Valladolid"), flight("IB2", "Lavalle"));
+        ObservableList<Flight> view = repository.filter(FlightFilter.destinationMatching("Valla", 2));
+        List<Flight> mirror = mirror(view);
+        assertEquals(List.of("Valladolid", "Lavalle"), destinations(view));
+
+        repository.getFlights().add(flight("IB3", "Valladolid"));
+        assertEquals(List.of("Valladolid", "Valladolid"), destinations(view));
+        assertEquals(view, mirror);
+    }
+
+    @Test
+    void destinationViewShowsADestinationRegisteredLater() {
+        FlightRepository repository = new FlightRepository();
+        ObservableList<Flight> view = repository.filter(FlightFilter.destination("Ulan Bator"));
+        assertEquals(List.of(), view);
+
+        repository.getFlights().add(flight("IB1", "ULAN BATOR"));
+
+        assertEquals(List.of("ULAN BATOR"), destinations(view));
+    }
+
+    @Test
+    void unlimitedViewMatchesTheFilteredList() {
+        FlightRepository repository = new FlightRepository();
+        Random random = new Random(17);
+        FlightFilter filter = FlightFilter.destination("Madrid");
+        ObservableList<Flight> view = repository.filter(filter);
+        List<Flight> mirror = mirror(view);
+        for (int i = 0; i < 2_000; i++) {
+            Flight flight = flight("IB" + random.nextInt(5), random.nextBoolean() ? "Madrid" : "Paris");
+            if (random.nextInt(3) == 0) {
+                repository.getFlights().remove(flight);
+            } else {
+                repository.getFlights().add(flight);
+            }
+            if (i % 100 == 0 && !repository.getFlights().isEmpty()) {
+                repository.getFlights().remove(0, random.nextInt(repository.getFlights().size()) / 2);
+            }
+        }
+
+        assertEquals(sorted(repository.getFlights().filtered(filter)), sorted(view));
+        assertEquals(view, mirror);
+    }
+
+    private static Flight flight(String number, String destination) {
+        return new Flight(number, destination, LocalDateTime.of(2025, 1, 1, 10, 0), LocalTime.of(1, 30));
+    }
+
+    /**
+     * Crea una copia de la vista que solo se actualiza con los cambios que notifica.
+     */
+    private static List<Flight> mirror(ObservableList<Flight> view) {
+        List<Flight> mirror = new ArrayList<>(view);
+        view.addListener((ListChangeListener<Flight>) change -> {
+            while (change.next()) {
+                mirror.subList(change.getFrom(), change.getFrom() + change.getRemovedSize()).clear();
+                mirror.addAll(change.getFrom(), change.getAddedSubList());
+            }
+        });
+        return mirror;
+    }
+
+    private static List<String> numbers(List<Flight> flights) {
+        return flights.stream().map(Flight::getFlightNumber).toList();
+    }
+
+    private static List<String> destinations(List<Flight> flights) {
+        return flights.stream().map(Flight::getDestination).toList();
+    }
+
+    private static List<Flight> sorted(List<Flight> flights) {
+        List<Flight> sorted = new ArrayList<>(flights);
+        sorted.sort(Comparator.comparing(Flight::toString));
+        return sorted;
+    }
+}